@@ -0,0 +1,153 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.vegetablecommand;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.Array;
+import com.esotericsoftware.spine.Animation;
+import com.esotericsoftware.spine.Animation.EventTimeline;
+import com.esotericsoftware.spine.Animation.ScaleTimeline;
+import com.esotericsoftware.spine.Animation.Timeline;
+import com.esotericsoftware.spine.AnimationState;
+import com.esotericsoftware.spine.AnimationState.TrackEntry;
+import com.esotericsoftware.spine.Bone;
+import com.esotericsoftware.spine.Skeleton;
+
+/**
+ * Lookup table of one bone's uniform scale over a prefab animation, sampled at load time.
+ */
+public class BakedCurve {
+    public static final float DEFAULT_SAMPLE_RATE = 120.0f;
+    private static final float TOLERANCE = .0001f;
+    private final int boneIndex;
+    private final float[] scales;
+    private final float[] worldScales;
+    private final float originX;
+    private final float originY;
+    private final float duration;
+
+    private BakedCurve(int boneIndex, float[] scales, float[] worldScales, float originX, float originY, float duration) {
+        this.boneIndex = boneIndex;
+        this.scales = scales;
+        this.worldScales = worldScales;
+        this.originX = originX;
+        this.originY = originY;
+        this.duration = duration;
+    }
+    
+    /**
+     * Samples the prefab's animation at the given rate in samples per second.
+     * Returns null unless the animation keys nothing but events and the scale
+     * of the given bone, and that bone stays unrotated and uniformly scaled.
+     * The caller should then keep playing it through Spine.
+     */
+    public static BakedCurve bake(SkeletonPrefab prefab, int boneIndex, float sampleRate) {
+        Animation animation = prefab.getAnimation();
+        Array<Timeline> timelines = animation.getTimelines();
+        for (int i = 0; i < timelines.size; i++) {
+            Timeline timeline = timelines.get(i);
+            if (!(timeline instanceof EventTimeline) && !(timeline instanceof ScaleTimeline && ((ScaleTimeline) timeline).getBoneIndex() == boneIndex)) {
+                return null;
+            }
+        }
+        
+        float duration = animation.getDuration();
+        int count = Math.max(2, MathUtils.ceil(duration * sampleRate) + 1);
+        float[] scales = new float[count];
+        float[] worldScales = new float[count];
+        Skeleton skeleton = new Skeleton(prefab.getSkeletonData());
+        AnimationState animationState = new AnimationState(prefab.getAnimationStateData());
+        TrackEntry entry = animationState.setAnimation(0, animation, false);
+        Bone bone = skeleton.getBones().get(boneIndex);
+        float originX = 0.0f;
+        float originY = 0.0f;
+        for (int i = 0; i < count; i++) {
+            float time = duration * i / (count - 1);
+            entry.setTrackTime(time);
+            animationState.apply(skeleton);
+            skeleton.updateWorldTransform();
+            
+            if (!MathUtils.isEqual(bone.getScaleX(), bone.getScaleY(), TOLERANCE)
+                    || !MathUtils.isEqual(bone.getA(), bone.getD(), TOLERANCE)
+                    || !MathUtils.isZero(bone.getB(), TOLERANCE) || !MathUtils.isZero(bone.getC(), TOLERANCE)) {
+                return null;
+            }
+            if (i == 0) {
+                originX = bone.getWorldX();
+                originY = bone.getWorldY();
+            }
+            scales[i] = bone.getScaleX();
+            worldScales[i] = bone.getA();
+        }
+        return new BakedCurve(boneIndex, scales, worldScales, originX, originY, duration);
+    }
+    
+    private float sample(float[] table, float time) {
+        if (time <= 0.0f || duration == 0.0f) {
+            return table[0];
+        }
+        if (time >= duration) {
+            return table[table.length - 1];
+        }
+        float position = time / duration * (table.length - 1);
+        int index = (int) position;
+        return MathUtils.lerp(table[index], table[index + 1], position - index);
+    }
+    
+    /**
+     * Local scale of the bone at the given animation time.
+     */
+    public float getScale(float time) {
+        return sample(scales, time);
+    }
+    
+    /**
+     * World scale of the bone at the given animation time, for a skeleton
+     * that is not scaled itself.
+     */
+    public float getWorldScale(float time) {
+        return sample(worldScales, time);
+    }
+
+    public int getBoneIndex() {
+        return boneIndex;
+    }
+
+    /**
+     * World position of the bone relative to the skeleton position. It does
+     * not move over the animation.
+     */
+    public float getOriginX() {
+        return originX;
+    }
+
+    public float getOriginY() {
+        return originY;
+    }
+
+    public float getDuration() {
+        return duration;
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.vegetablecommand;
+
+import com.esotericsoftware.spine.Skin;
+import com.esotericsoftware.spine.attachments.AttachmentLoader;
+import com.esotericsoftware.spine.attachments.BoundingBoxAttachment;
+import com.esotericsoftware.spine.attachments.ClippingAttachment;
+import com.esotericsoftware.spine.attachments.MeshAttachment;
+import com.esotericsoftware.spine.attachments.PathAttachment;
+import com.esotericsoftware.spine.attachments.PointAttachment;
+import com.esotericsoftware.spine.attachments.RegionAttachment;
+
+/**
+ * {@link AttachmentLoader} that skips textured attachments, for loading skeletons headless.
+ */
+public class BoundsAttachmentLoader implements AttachmentLoader {
+    @Override
+    public RegionAttachment newRegionAttachment(Skin skin, String name, String path) {
+        return null;
+    }
+
+    @Override
+    public MeshAttachment newMeshAttachment(Skin skin, String name, String path) {
+        return null;
+    }
+
+    @Override
+    public BoundingBoxAttachment newBoundingBoxAttachment(Skin skin, String name) {
+        return new BoundingBoxAttachment(name);
+    }
+
+    @Override
+    public ClippingAttachment newClippingAttachment(Skin skin, String name) {
+        return new ClippingAttachment(name);
+    }
+
+    @Override
+    public PathAttachment newPathAttachment(Skin skin, String name) {
+        return new PathAttachment(name);
+    }
+
+    @Override
+    public PointAttachment newPointAttachment(Skin skin, String name) {
+        return new PointAttachment(name);
+    }
+}
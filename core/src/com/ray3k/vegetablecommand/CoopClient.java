@@ -0,0 +1,292 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ray3k.vegetablecommand;
+
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ByteArray;
+import com.badlogic.gdx.utils.Pool;
+import com.ray3k.vegetablecommand.GameWorld.Team;
+import com.ray3k.vegetablecommand.entities.MissileEntity;
+import com.ray3k.vegetablecommand.entities.TurretEntity;
+import java.nio.ByteBuffer;
+import java.util.Comparator;
+
+/**
+ * Client side of a co-op session, with puppets from server frames and predicted local shots.
+ */
+public class CoopClient {
+    public static final int MAX_PREDICTED = 16;
+    private final Core core;
+    private final Transport transport;
+    private final TickInput input;
+    private final ByteArray message;
+    private final Array<Prediction> predictions;
+    private final Pool<Prediction> predictionPool;
+    private final Array<TurretEntity> ownTurrets;
+    private final Comparator<Entity> idComparator;
+    private InputSource inputSource;
+    private GameWorld world;
+    private StateDecoder decoder;
+    private int player;
+    private int tickRate;
+    private int serverTick;
+    private int inputTick;
+    private int acknowledgedInputTick;
+    private int turretCounter;
+    private boolean fired;
+    private int droppedPredictions;
+    
+    /**
+     * A missile shown before the server confirms it.
+     */
+    private static class Prediction {
+        int inputTick;
+        MissileEntity missile;
+    }
+
+    public CoopClient(Core core, Transport transport) {
+        this.core = core;
+        this.transport = transport;
+        input = new TickInput();
+        message = new ByteArray(16);
+        predictions = new Array<Prediction>(false, MAX_PREDICTED);
+        predictionPool = new Pool<Prediction>() {
+            @Override
+            protected Prediction newObject() {
+                return new Prediction();
+            }
+        };
+        ownTurrets = new Array<TurretEntity>();
+        idComparator = new Comparator<Entity>() {
+            @Override
+            public int compare(Entity o1, Entity o2) {
+                return o1.getId() - o2.getId();
+            }
+        };
+    }
+    
+    /**
+     * Applies every frame received so far, then samples, sends and predicts
+     * one tick of local input. Call once per server tick.
+     */
+    public void tick(float delta) {
+        ByteBuffer in;
+        while ((in = transport.receive()) != null) {
+            byte type = in.get();
+            if (type == CoopServer.MESSAGE_WELCOME) {
+                welcome(in);
+            } else if (type == CoopServer.MESSAGE_FRAME) {
+                serverTick = VarInt.read(in);
+                acknowledgedInputTick = VarInt.read(in);
+                decoder.decode(in);
+                reconcile();
+            }
+        }
+        
+        if (world == null) {
+            return;
+        }
+        
+        if (inputSource != null) {
+            inputSource.poll(input);
+        }
+        inputTick++;
+        message.clear();
+        message.add(CoopServer.MESSAGE_INPUT);
+        VarInt.write(message, inputTick);
+        message.add((byte) (input.isFiring() ? 1 : 0));
+        VarInt.writeSigned(message, input.getPointerX());
+        VarInt.writeSigned(message, input.getPointerY());
+        transport.send(message.items, 0, message.size);
+        
+        predict(delta);
+    }
+    
+    private void welcome(ByteBuffer in) {
+        player = in.get();
+        int playerCount = in.get();
+        long seed = in.getLong();
+        tickRate = VarInt.read(in);
+        int worldWidth = VarInt.read(in);
+        int worldHeight = VarInt.read(in);
+        world = new GameWorld(core, seed, worldWidth, worldHeight, playerCount);
+        decoder = new StateDecoder(world);
+    }
+    
+    /**
+     * Drops the predictions the server has caught up with. A prediction
+     * acknowledged while its missile is still flying was either replaced by
+     * the real one or never fired on the server.
+     */
+    private void reconcile() {
+        for (int i = predictions.size - 1; i >= 0; i--) {
+            Prediction prediction = predictions.get(i);
+            if (prediction.inputTick <= acknowledgedInputTick) {
+                if (prediction.missile != null) {
+                    prediction.missile.discard();
+                }
+                predictions.removeIndex(i);
+                predictionPool.free(prediction);
+            }
+        }
+    }
+    
+    private void predict(float delta) {
+        findOwnTurrets();
+        Vector2 temp = world.getTemp1();
+        for (int i = 0; i < ownTurrets.size; i++) {
+            TurretEntity turret = ownTurrets.get(i);
+            temp.set(input.getPointerX(), input.getPointerY());
+            temp.sub(turret.getX(), turret.getY());
+            if (temp.angle() >= 5.0f && temp.angle() < 175.0f) {
+                turret.setAim(temp.angle());
+                turret.updatePose(0.0f);
+            }
+        }
+        
+        if (input.isFiring()) {
+            if (!fired && ownTurrets.size > 0) {
+                turretCounter %= ownTurrets.size;
+                fire(ownTurrets.get(turretCounter));
+                turretCounter++;
+                fired = true;
+            }
+        } else {
+            fired = false;
+        }
+        
+        for (int i = 0; i < predictions.size; i++) {
+            MissileEntity missile = predictions.get(i).missile;
+            if (missile != null) {
+                missile.moveTowardsPoint(missile.getTargetX(), missile.getTargetY(), missile.getMissileSpeed(), delta);
+                missile.updateLine();
+                missile.updatePose(0.0f);
+                if (MathUtils.isEqual(missile.getX(), missile.getTargetX()) && MathUtils.isEqual(missile.getY(), missile.getTargetY())) {
+                    missile.discard();
+                    predictions.get(i).missile = null;
+                }
+            }
+        }
+    }
+    
+    private void fire(TurretEntity turret) {
+        if (predictions.size >= MAX_PREDICTED) {
+            droppedPredictions++;
+            return;
+        }
+        
+        Vector2 temp = world.getTemp1();
+        temp.set(input.getPointerX(), input.getPointerY());
+        temp.sub(turret.getX(), turret.getY());
+        float angle = temp.angle();
+        
+        turret.getMuzzlePosition(temp);
+        MissileEntity missile = world.spawnMissile(temp.x, temp.y, input.getPointerX(), input.getPointerY(), TurretEntity.MISSILE_SPEED);
+        missile.setRotation(angle);
+        missile.setTeam(Team.PLAYER);
+        missile.setDestroyable(false);
+        missile.updateLine();
+        missile.updatePose(0.0f);
+        
+        Prediction prediction = predictionPool.obtain();
+        prediction.inputTick = inputTick;
+        prediction.missile = missile;
+        predictions.add(prediction);
+    }
+    
+    /**
+     * Collects this player's turrets in spawn order, the order the server
+     * deals shots in.
+     */
+    private void findOwnTurrets() {
+        ownTurrets.clear();
+        EntityManager manager = world.getEntityManager();
+        for (int i = 0; i < manager.getEntityCount(); i++) {
+            Entity entity = manager.getEntity(i);
+            if (entity instanceof TurretEntity && !entity.isDestroyed() && ((TurretEntity) entity).getOwner() == player) {
+                ownTurrets.add((TurretEntity) entity);
+            }
+        }
+        ownTurrets.sort(idComparator);
+    }
+    
+    public void draw(SpriteBatch spriteBatch) {
+        if (world != null) {
+            world.draw(spriteBatch, 0.0f);
+        }
+    }
+    
+    public boolean isConnected() {
+        return world != null;
+    }
+
+    public InputSource getInputSource() {
+        return inputSource;
+    }
+
+    public void setInputSource(InputSource inputSource) {
+        this.inputSource = inputSource;
+    }
+
+    /**
+     * Puppet world mirroring the server, including predicted missiles. Null
+     * until the server's welcome arrives.
+     */
+    public GameWorld getWorld() {
+        return world;
+    }
+
+    public int getPlayer() {
+        return player;
+    }
+
+    public int getTickRate() {
+        return tickRate;
+    }
+
+    public int getServerTick() {
+        return serverTick;
+    }
+
+    /**
+     * Number of local inputs the server has not applied yet.
+     */
+    public int getInputLatency() {
+        return inputTick - acknowledgedInputTick;
+    }
+
+    public int getPredictionCount() {
+        return predictions.size;
+    }
+
+    /**
+     * Shots not predicted because too many predictions were pending.
+     */
+    public int getDroppedPredictions() {
+        return droppedPredictions;
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ray3k.vegetablecommand;
+
+import com.badlogic.gdx.utils.ByteArray;
+import java.nio.ByteBuffer;
+
+/**
+ * Runs the authoritative {@link GameWorld} of a co-op session and streams frames to its clients.
+ */
+public class CoopServer {
+    static final byte MESSAGE_WELCOME = 0;
+    static final byte MESSAGE_FRAME = 1;
+    static final byte MESSAGE_INPUT = 2;
+    private final GameWorld world;
+    private final Transport[] clients;
+    private final int[] lastInputTicks;
+    private final StateEncoder encoder;
+    private final ByteArray frameBytes;
+    private final ByteArray message;
+    private int tick;
+
+    public CoopServer(Core core, long seed, int worldWidth, int worldHeight, Transport... clients) {
+        this.clients = clients;
+        world = new GameWorld(core, seed, worldWidth, worldHeight, clients.length);
+        lastInputTicks = new int[clients.length];
+        encoder = new StateEncoder();
+        frameBytes = new ByteArray(4096);
+        message = new ByteArray(4096);
+    }
+    
+    /**
+     * Welcomes every client and spawns the first wave.
+     */
+    public void start(int tickRate) {
+        for (int player = 0; player < clients.length; player++) {
+            message.clear();
+            message.add(MESSAGE_WELCOME);
+            message.add((byte) player);
+            message.add((byte) clients.length);
+            VarInt.writeFixedLong(message, world.getSeed());
+            VarInt.write(message, tickRate);
+            VarInt.write(message, world.getWorldWidth());
+            VarInt.write(message, world.getWorldHeight());
+            clients[player].send(message.items, 0, message.size);
+        }
+        
+        world.start();
+    }
+    
+    public void tick(float delta) {
+        for (int player = 0; player < clients.length; player++) {
+            readInputs(player);
+        }
+        
+        world.act(delta);
+        tick++;
+        
+        frameBytes.clear();
+        encoder.encode(world, frameBytes);
+        for (int player = 0; player < clients.length; player++) {
+            message.clear();
+            message.add(MESSAGE_FRAME);
+            VarInt.write(message, tick);
+            VarInt.write(message, lastInputTicks[player]);
+            message.addAll(frameBytes);
+            clients[player].send(message.items, 0, message.size);
+        }
+    }
+    
+    /**
+     * Drains every input the client sent since the last tick. The newest one
+     * sets the pointer and the acknowledged tick, and a press in any of them
+     * fires, so a client running ahead never loses a shot.
+     */
+    private void readInputs(int player) {
+        TickInput input = world.getTickInput(player);
+        boolean received = false;
+        boolean firing = false;
+        ByteBuffer in;
+        while ((in = clients[player].receive()) != null) {
+            if (in.get() != MESSAGE_INPUT) {
+                continue;
+            }
+            
+            int inputTick = VarInt.read(in);
+            firing |= in.get() != 0;
+            int pointerX = VarInt.readSigned(in);
+            int pointerY = VarInt.readSigned(in);
+            if (inputTick >= lastInputTicks[player]) {
+                lastInputTicks[player] = inputTick;
+                input.setPointerX(pointerX);
+                input.setPointerY(pointerY);
+            }
+            received = true;
+        }
+        
+        if (received) {
+            input.setFiring(firing);
+        }
+    }
+    
+    /**
+     * Total bytes sent to all clients.
+     */
+    public long getBytesSent() {
+        long bytes = 0;
+        for (Transport client : clients) {
+            bytes += client.getBytesSent();
+        }
+        return bytes;
+    }
+
+    public GameWorld getWorld() {
+        return world;
+    }
+
+    public int getTick() {
+        return tick;
+    }
+}
@@ -13,7 +13,6 @@ import com.badlogic.gdx.graphics.g2d.TextureAtlas;
 import com.badlogic.gdx.scenes.scene2d.ui.Skin;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.ObjectMap;
-import com.badlogic.gdx.utils.TimeUtils;
 import com.esotericsoftware.spine.SkeletonData;
 import com.esotericsoftware.spine.SkeletonRenderer;
 import com.ray3k.vegetablecommand.SkeletonDataLoader.SkeletonDataLoaderParameter;
@@ -21,6 +20,7 @@ import com.ray3k.vegetablecommand.states.GameOverState;
 import com.ray3k.vegetablecommand.states.GameState;
 import com.ray3k.vegetablecommand.states.LoadingState;
 import com.ray3k.vegetablecommand.states.MenuState;
+import com.ray3k.vegetablecommand.states.PlaybackState;
 import java.awt.Desktop;
 import java.io.File;
 import java.io.FileWriter;
@@ -31,16 +31,43 @@ import javax.swing.JOptionPane;
 public class Core extends ApplicationAdapter {
     public final static String VERSION = "1";
     public final static String DATA_PATH = "vegetable_command_data";
-    private final static long MS_PER_UPDATE = 10;
+    public final static int DEFAULT_HEADLESS_TICKS_PER_RENDER = 1000;
     private AssetManager assetManager;
     private StateManager stateManager;
     private SpriteBatch spriteBatch;
     private PixmapPacker pixmapPacker;
-    private long previous;
-    private long lag;
+    private SimulationClock clock;
     private TextureAtlas atlas;
     private SkeletonRenderer skeletonRenderer;
     private ObjectMap<String, Array<String>> imagePacks;
+    private final boolean headless;
+    private final int worldWidth;
+    private final int worldHeight;
+    private int headlessTicksPerRender;
+    private boolean headlessRunOver;
+    private String recordDirectory;
+    private String playbackFile;
+    private boolean recordingStates;
+    private int keyframeInterval;
+    private volatile PrefabRegistry prefabs;
+
+    public Core() {
+        this(false, 0, 0);
+    }
+    
+    /**
+     * @param headless run without a window or GL context. Only the simulation
+     * assets are loaded and the game state is started directly.
+     * @param worldWidth virtual world width used when headless.
+     * @param worldHeight virtual world height used when headless.
+     */
+    public Core(boolean headless, int worldWidth, int worldHeight) {
+        this.headless = headless;
+        this.worldWidth = worldWidth;
+        this.worldHeight = worldHeight;
+        headlessTicksPerRender = DEFAULT_HEADLESS_TICKS_PER_RENDER;
+        keyframeInterval = KeyframeRecorder.DEFAULT_INTERVAL;
+    }
 
     @Override
     public void create() {
@@ -49,10 +76,14 @@ public class Core extends ApplicationAdapter {
 
             loadAssets();
 
-            previous = TimeUtils.millis();
-            lag = 0;
+            clock.reset();
 
-            stateManager.loadState("loading");
+            if (headless) {
+                assetManager.finishLoading();
+                stateManager.loadState("game");
+            } else {
+                stateManager.loadState("loading");
+            }
         } catch (Exception e) {
             e.printStackTrace();
             
@@ -63,7 +94,7 @@ public class Core extends ApplicationAdapter {
                 e.printStackTrace(pw);
                 pw.close();
                 fw.close();
-                int choice = JOptionPane.showConfirmDialog(null, "Exception occurred. See error log?", "Game Exception!", JOptionPane.YES_NO_OPTION);
+                int choice = headless ? JOptionPane.NO_OPTION : JOptionPane.showConfirmDialog(null, "Exception occurred. See error log?", "Game Exception!", JOptionPane.YES_NO_OPTION);
                 if (choice == 0) {
                     FileHandle startDirectory = Gdx.files.local("java-stacktrace.txt");
                     if (startDirectory.exists()) {
@@ -85,17 +116,22 @@ public class Core extends ApplicationAdapter {
         assetManager = new AssetManager(new LocalFileHandleResolver(), true);
         assetManager.setLoader(SkeletonData.class, new SkeletonDataLoader(new LocalFileHandleResolver()));
         
+        clock = new SimulationClock();
+        
         stateManager = new StateManager(this);
-        stateManager.addState("loading", new LoadingState("menu", this));
+        stateManager.addState("loading", new LoadingState(playbackFile == null ? "menu" : "playback", this));
         stateManager.addState("menu", new MenuState(this));
         stateManager.addState("game", new GameState(this));
         stateManager.addState("game-over", new GameOverState(this));
+        stateManager.addState("playback", new PlaybackState(this));
         
-        spriteBatch = new SpriteBatch();
-        
-        pixmapPacker = new PixmapPacker(1024, 1024, Pixmap.Format.RGBA8888, 5, true, new PixmapPacker.GuillotineStrategy());
-        
-        skeletonRenderer = new SkeletonRenderer();
+        if (!headless) {
+            spriteBatch = new SpriteBatch();
+
+            pixmapPacker = new PixmapPacker(1024, 1024, Pixmap.Format.RGBA8888, 5, true, new PixmapPacker.GuillotineStrategy());
+
+            skeletonRenderer = new SkeletonRenderer();
+        }
         
         imagePacks = new ObjectMap<String, Array<String>>();
         for (String name : new String[] {"vegetables"}) {
@@ -106,17 +142,30 @@ public class Core extends ApplicationAdapter {
     @Override
     public void render() {
         try {
-            long current = TimeUtils.millis();
-            long elapsed = current - previous;
-            previous = current;
-            lag += elapsed;
-
-            while (lag >= MS_PER_UPDATE) {
-                stateManager.act(MS_PER_UPDATE / 1000.0f);
-                lag -= MS_PER_UPDATE;
-            }
+            if (headless) {
+                for (int i = 0; i < headlessTicksPerRender && !headlessRunOver; i++) {
+                    if (isHeadlessRunOver()) {
+                        headlessRunOver = true;
+                        endHeadlessRun();
+                    } else {
+                        stateManager.act(clock.getTickDelta());
+                    }
+                }
+            } else if (clock.isTurbo()) {
+                clock.beginTurbo();
+                while (clock.turboTick()) {
+                    stateManager.act(clock.getTickDelta());
+                }
+                
+                stateManager.draw(spriteBatch, 0.0f);
+            } else {
+                int substeps = clock.advance();
+                for (int i = 0; i < substeps; i++) {
+                    stateManager.act(clock.getTickDelta());
+                }
 
-            stateManager.draw(spriteBatch, lag / MS_PER_UPDATE);
+                stateManager.draw(spriteBatch, clock.getAlpha());
+            }
         } catch (Exception e) {
             e.printStackTrace();
             
@@ -127,7 +176,7 @@ public class Core extends ApplicationAdapter {
                 e.printStackTrace(pw);
                 pw.close();
                 fw.close();
-                int choice = JOptionPane.showConfirmDialog(null, "Exception occurred. See error log?", "Game Exception!", JOptionPane.YES_NO_OPTION);
+                int choice = headless ? JOptionPane.NO_OPTION : JOptionPane.showConfirmDialog(null, "Exception occurred. See error log?", "Game Exception!", JOptionPane.YES_NO_OPTION);
                 if (choice == 0) {
                     FileHandle startDirectory = Gdx.files.local("java-stacktrace.txt");
                     if (startDirectory.exists()) {
@@ -145,11 +194,28 @@ public class Core extends ApplicationAdapter {
         }
     }
 
+    /**
+     * Checked before every headless tick. Once it returns true, no more ticks
+     * are simulated and {@link #endHeadlessRun()} is called.
+     */
+    protected boolean isHeadlessRunOver() {
+        return false;
+    }
+    
+    /**
+     * Called once when the headless run is over. Exits the application.
+     */
+    protected void endHeadlessRun() {
+        Gdx.app.exit();
+    }
+
     @Override
     public void dispose() {
         assetManager.dispose();
         stateManager.dispose();
-        pixmapPacker.dispose();
+        if (pixmapPacker != null) {
+            pixmapPacker.dispose();
+        }
         if (atlas != null) {
             atlas.dispose();
         }
@@ -157,6 +223,16 @@ public class Core extends ApplicationAdapter {
     
     public void loadAssets() {
         assetManager.clear();
+        if (headless) {
+            SkeletonDataLoaderParameter parameter = new SkeletonDataLoaderParameter(null);
+            assetManager.load(DATA_PATH + "/spine/base.json", SkeletonData.class, parameter);
+            assetManager.load(DATA_PATH + "/spine/city.json", SkeletonData.class, parameter);
+            assetManager.load(DATA_PATH + "/spine/explosion.json", SkeletonData.class, parameter);
+            assetManager.load(DATA_PATH + "/spine/line.json", SkeletonData.class, parameter);
+            assetManager.load(DATA_PATH + "/spine/plane.json", SkeletonData.class, parameter);
+            return;
+        }
+        
         SkeletonDataLoaderParameter parameter = new SkeletonDataLoaderParameter(DATA_PATH + "/spine/vegetable-command.atlas");
         assetManager.load(DATA_PATH + "/spine/base.json", SkeletonData.class, parameter);
         assetManager.load(DATA_PATH + "/spine/city.json", SkeletonData.class, parameter);
@@ -196,10 +272,98 @@ public class Core extends ApplicationAdapter {
         stateManager.resize(width, height);
     }
     
+    public boolean isHeadless() {
+        return headless;
+    }
+
+    public int getWorldWidth() {
+        return headless ? worldWidth : Gdx.graphics.getWidth();
+    }
+
+    public int getWorldHeight() {
+        return headless ? worldHeight : Gdx.graphics.getHeight();
+    }
+
+    public int getHeadlessTicksPerRender() {
+        return headlessTicksPerRender;
+    }
+
+    public void setHeadlessTicksPerRender(int headlessTicksPerRender) {
+        this.headlessTicksPerRender = headlessTicksPerRender;
+    }
+
+    public String getRecordDirectory() {
+        return recordDirectory;
+    }
+
+    /**
+     * Records the input of every game session into this local directory, one
+     * log per session named after its seed. Null disables recording.
+     */
+    public void setRecordDirectory(String recordDirectory) {
+        this.recordDirectory = recordDirectory;
+    }
+
+    public String getPlaybackFile() {
+        return playbackFile;
+    }
+
+    /**
+     * Opens this recorded state stream after loading instead of the menu.
+     */
+    public void setPlaybackFile(String playbackFile) {
+        this.playbackFile = playbackFile;
+    }
+
+    public int getKeyframeInterval() {
+        return keyframeInterval;
+    }
+
+    /**
+     * Ticks between the {@link KeyframeRecorder} snapshots saved next to each
+     * input log when a record directory is set. 0 disables keyframes.
+     */
+    public void setKeyframeInterval(int keyframeInterval) {
+        this.keyframeInterval = keyframeInterval;
+    }
+
+    public boolean isRecordingStates() {
+        return recordingStates;
+    }
+
+    /**
+     * Also records a {@link StateStreamRecorder} stream next to each input log
+     * when a record directory is set.
+     */
+    public void setRecordingStates(boolean recordingStates) {
+        this.recordingStates = recordingStates;
+    }
+
+    /**
+     * Skeleton archetypes, built on first use. Assets must be loaded by then.
+     */
+    public PrefabRegistry getPrefabs() {
+        PrefabRegistry prefabs = this.prefabs;
+        if (prefabs == null) {
+            synchronized (this) {
+                prefabs = this.prefabs;
+                if (prefabs == null) {
+                    prefabs = new PrefabRegistry(assetManager);
+                    this.prefabs = prefabs;
+                }
+            }
+        }
+        return prefabs;
+    }
+
     public AssetManager getAssetManager() {
         return assetManager;
     }
 
+    public SimulationClock getClock() {
+        return clock;
+    }
+
     public StateManager getStateManager() {
         return stateManager;
     }
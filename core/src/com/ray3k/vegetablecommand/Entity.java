@@ -25,13 +25,14 @@ package com.ray3k.vegetablecommand;
 
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.IntArray;
+import java.nio.ByteBuffer;
 
 public abstract class Entity {
-    private static final Vector2 temp = new Vector2();
-    private final Vector2 position;
-    private final Vector2 speed;
+    public static final int NO_LAYER = -1;
     private final Vector2 offset;
     private final Vector2 scale;
     private float rotation;
@@ -39,36 +40,73 @@ public abstract class Entity {
     private boolean destroyed;
     private final EntityManager manager;
     private final Core core;
-    private final Vector2 gravity;
+    private final KinematicStore kinematics;
     private int depth;
     private final Rectangle collisionBox;
-    private final Vector2 collisionBoxPosition;
     private boolean checkingCollisions;
+    private int collisionLayer;
+    private int collisionMask;
+    int id;
+    int layerIndex;
+    int index;
+    int slot;
+    final IntArray familySlots;
 
     public Entity(EntityManager manager, Core core) {
-        position = new Vector2();
-        speed = new Vector2();
+        this(manager, core, true);
+    }
+    
+    /**
+     * Pooled entities pass {@code spawn = false} to construct an inert
+     * instance, then call {@link #spawn()} each time they are taken from the
+     * pool.
+     */
+    protected Entity(EntityManager manager, Core core, boolean spawn) {
         offset = new Vector2();
         scale = new Vector2();
-        gravity = new Vector2();
+        this.manager = manager;
+        this.core = core;
+        kinematics = manager.getKinematics();
+        collisionBox = new Rectangle();
+        familySlots = new IntArray(4);
+        destroyed = true;
+        id = -1;
+        layerIndex = -1;
+        index = -1;
+        slot = -1;
         
-        scale.x = 1.0f;
-        scale.y = 1.0f;
+        if (spawn) {
+            spawn();
+        }
+    }
+    
+    /**
+     * Resets the base state, claims a kinematic slot and adds the entity to
+     * its manager.
+     */
+    public void spawn() {
+        offset.set(0.0f, 0.0f);
+        scale.set(1.0f, 1.0f);
         rotation = 0.0f;
+        textureRegion = null;
         depth = 0;
         destroyed = false;
-        this.manager = manager;
-        manager.addEntity(this);
-        this.core = core;
-        collisionBox = new Rectangle();
-        collisionBoxPosition = new Vector2();
-        collisionBoxPosition.x = 0;
-        collisionBoxPosition.y = 0;
         checkingCollisions = false;
+        collisionLayer = NO_LAYER;
+        collisionMask = 0;
+        slot = kinematics.allocate(this);
+        manager.addEntity(this);
         
         create();
     }
     
+    /**
+     * Called once the manager has let go of a destroyed entity. Pooled
+     * entities return themselves to their pool here.
+     */
+    protected void recycle() {
+    }
+    
     public abstract void create();
     
     public abstract void act(float delta);
@@ -85,23 +123,35 @@ public abstract class Entity {
         if (!destroyed) {
             destroyed = true;
             destroy();
+            manager.removeEntity(this);
+        }
+    }
+    
+    /**
+     * Removes the entity without calling {@link #destroy()}, for puppets
+     * whose gameplay hooks must not run.
+     */
+    public void discard() {
+        if (!destroyed) {
+            destroyed = true;
+            manager.removeEntity(this);
         }
     }
 
     public Vector2 getPosition() {
-        return position.cpy();
+        return new Vector2(getX(), getY());
     }
     
     public float getX() {
-        return position.x;
+        return kinematics.x[slot];
     }
     
     public float getY() {
-        return position.y;
+        return kinematics.y[slot];
     }
     
     public void setPosition(Vector2 position) {
-        this.position.set(position);
+        setPosition(position.x, position.y);
     }
     
     public void setPosition(float x, float y) {
@@ -110,66 +160,74 @@ public abstract class Entity {
     }
     
     public void setX(float x) {
-        this.position.x = x;
+        kinematics.x[slot] = x;
     }
     
     public void setY(float y) {
-        this.position.y = y;
+        kinematics.y[slot] = y;
     }
     
     public void addX(float x) {
-        this.position.x += x;
+        kinematics.x[slot] += x;
     }
     
     public void addY(float y) {
-        this.position.y += y;
+        kinematics.y[slot] += y;
     }
 
     public float getSpeed() {
-        return speed.len();
+        float xSpeed = getXspeed();
+        float ySpeed = getYspeed();
+        return (float) Math.sqrt(xSpeed * xSpeed + ySpeed * ySpeed);
     }
     
     public float getXspeed() {
-        return speed.x;
+        return kinematics.xSpeed[slot];
     }
     
     public float getYspeed() {
-        return speed.y;
+        return kinematics.ySpeed[slot];
     }
     
     public void setSpeed(Vector2 speed) {
-        this.speed.set(speed);
+        setXspeed(speed.x);
+        setYspeed(speed.y);
     }
     
     public void setXspeed(float x) {
-        this.speed.x = x;
+        kinematics.xSpeed[slot] = x;
     }
     
     public void setYspeed(float y) {
-        this.speed.y = y;
+        kinematics.ySpeed[slot] = y;
     }
     
     public void addXspeed(float x) {
-        this.speed.x += x;
+        kinematics.xSpeed[slot] += x;
     }
     
     public void addYspeed(float y) {
-        this.speed.y += y;
+        kinematics.ySpeed[slot] += y;
     }
     
     public void setMotion(float speed, float direction) {
-        this.speed.set(speed, 0);
-        this.speed.rotate(direction);
+        float radians = direction * MathUtils.degreesToRadians;
+        setXspeed(speed * (float) Math.cos(radians));
+        setYspeed(speed * (float) Math.sin(radians));
     }
     
     public void addMotion(float speed, float direction) {
-        temp.set(speed, 0);
-        temp.rotate(direction);
-        this.speed.add(temp);
+        float radians = direction * MathUtils.degreesToRadians;
+        addXspeed(speed * (float) Math.cos(radians));
+        addYspeed(speed * (float) Math.sin(radians));
     }
     
     public float getDirection() {
-        return this.speed.angle();
+        float angle = (float) Math.atan2(getYspeed(), getXspeed()) * MathUtils.radiansToDegrees;
+        if (angle < 0) {
+            angle += 360;
+        }
+        return angle;
     }
 
     public float getRotation() {
@@ -245,28 +303,29 @@ public abstract class Entity {
     }
     
     public void setGravityX(float gravityX) {
-        gravity.x = gravityX;
+        kinematics.gravityX[slot] = gravityX;
     }
     
     public void setGravityY(float gravityY) {
-        gravity.y = gravityY;
+        kinematics.gravityY[slot] = gravityY;
     }
     
     public void setGravity(float speed, float direction) {
-        gravity.set(speed, 0);
-        gravity.rotate(direction);
+        float radians = direction * MathUtils.degreesToRadians;
+        setGravityX(speed * (float) Math.cos(radians));
+        setGravityY(speed * (float) Math.sin(radians));
     }
     
     public float getGravityX() {
-        return gravity.x;
+        return kinematics.gravityX[slot];
     }
     
     public float getGravityY() {
-        return gravity.y;
+        return kinematics.gravityY[slot];
     }
     
     public Vector2 getGravity() {
-        return gravity.cpy();
+        return new Vector2(getGravityX(), getGravityY());
     }
 
     public int getDepth() {
@@ -274,11 +333,21 @@ public abstract class Entity {
     }
 
     public void setDepth(int depth) {
-        this.depth = depth;
+        if (this.depth != depth) {
+            int oldDepth = this.depth;
+            this.depth = depth;
+            manager.depthChanged(this, oldDepth);
+        }
     }
 
+    /**
+     * Returns this entity's collision box, refreshed from the kinematic store.
+     * Size it with {@link #setCollisionBoxWidth(float)} and
+     * {@link #setCollisionBoxHeight(float)}; writes to the rectangle itself
+     * are overwritten on the next call.
+     */
     public Rectangle getCollisionBox() {
-        return collisionBox;
+        return collisionBox.set(kinematics.boxX[slot], kinematics.boxY[slot], kinematics.boxWidth[slot], kinematics.boxHeight[slot]);
     }
 
     public boolean isCheckingCollisions() {
@@ -290,18 +359,120 @@ public abstract class Entity {
     }
 
     public void setCollisionBoxX(float collisionBoxX) {
-        collisionBoxPosition.x = collisionBoxX;
+        kinematics.boxOffsetX[slot] = collisionBoxX;
     }
     
     public void setCollisionBoxY(float collisionBoxY) {
-        collisionBoxPosition.y = collisionBoxY;
+        kinematics.boxOffsetY[slot] = collisionBoxY;
     }
     
     public float getCollisionBoxX() {
-        return collisionBoxPosition.x;
+        return kinematics.boxOffsetX[slot];
     }
     
     public float getCollisionBoxY() {
-        return collisionBoxPosition.y;
+        return kinematics.boxOffsetY[slot];
+    }
+    
+    public float getCollisionBoxWidth() {
+        return kinematics.boxWidth[slot];
+    }
+    
+    public void setCollisionBoxWidth(float collisionBoxWidth) {
+        kinematics.boxWidth[slot] = collisionBoxWidth;
+    }
+    
+    public float getCollisionBoxHeight() {
+        return kinematics.boxHeight[slot];
+    }
+    
+    public void setCollisionBoxHeight(float collisionBoxHeight) {
+        kinematics.boxHeight[slot] = collisionBoxHeight;
+    }
+
+    public int getCollisionLayer() {
+        return collisionLayer;
+    }
+
+    /**
+     * Moves this entity into the given layer of its manager, or out of every
+     * layer with {@link #NO_LAYER}. Layers are indexed 0 to
+     * {@link EntityManager#MAX_LAYERS} - 1.
+     */
+    public void setCollisionLayer(int collisionLayer) {
+        if (this.collisionLayer != collisionLayer) {
+            manager.removeFromLayer(this);
+            this.collisionLayer = collisionLayer;
+            manager.addToLayer(this);
+        }
+    }
+
+    public int getCollisionMask() {
+        return collisionMask;
+    }
+
+    public void setCollisionMask(int collisionMask) {
+        this.collisionMask = collisionMask;
+    }
+
+    /**
+     * Identifier assigned by the manager on every spawn, unique within the
+     * manager.
+     */
+    public int getId() {
+        return id;
+    }
+    
+    /**
+     * Writes the simulation state of this entity for a {@link GameSnapshot}.
+     * Subclasses with more state override this and
+     * {@link #readState(ByteBuffer)}, calling super first.
+     */
+    public void writeState(ByteBuffer buffer) {
+        buffer.putFloat(kinematics.x[slot]);
+        buffer.putFloat(kinematics.y[slot]);
+        buffer.putFloat(kinematics.xSpeed[slot]);
+        buffer.putFloat(kinematics.ySpeed[slot]);
+        buffer.putFloat(kinematics.gravityX[slot]);
+        buffer.putFloat(kinematics.gravityY[slot]);
+        buffer.putFloat(kinematics.boxOffsetX[slot]);
+        buffer.putFloat(kinematics.boxOffsetY[slot]);
+        buffer.putFloat(kinematics.boxX[slot]);
+        buffer.putFloat(kinematics.boxY[slot]);
+        buffer.putFloat(kinematics.boxWidth[slot]);
+        buffer.putFloat(kinematics.boxHeight[slot]);
+        buffer.putFloat(offset.x);
+        buffer.putFloat(offset.y);
+        buffer.putFloat(scale.x);
+        buffer.putFloat(scale.y);
+        buffer.putFloat(rotation);
+        buffer.putInt(depth);
+        buffer.put((byte) (checkingCollisions ? 1 : 0));
+        buffer.put((byte) collisionLayer);
+        buffer.putInt(collisionMask);
+    }
+    
+    public void readState(ByteBuffer buffer) {
+        kinematics.x[slot] = buffer.getFloat();
+        kinematics.y[slot] = buffer.getFloat();
+        kinematics.xSpeed[slot] = buffer.getFloat();
+        kinematics.ySpeed[slot] = buffer.getFloat();
+        kinematics.gravityX[slot] = buffer.getFloat();
+        kinematics.gravityY[slot] = buffer.getFloat();
+        kinematics.boxOffsetX[slot] = buffer.getFloat();
+        kinematics.boxOffsetY[slot] = buffer.getFloat();
+        kinematics.boxX[slot] = buffer.getFloat();
+        kinematics.boxY[slot] = buffer.getFloat();
+        kinematics.boxWidth[slot] = buffer.getFloat();
+        kinematics.boxHeight[slot] = buffer.getFloat();
+        offset.x = buffer.getFloat();
+        offset.y = buffer.getFloat();
+        scale.x = buffer.getFloat();
+        scale.y = buffer.getFloat();
+        rotation = buffer.getFloat();
+        setDepth(buffer.getInt());
+        checkingCollisions = buffer.get() != 0;
+        setCollisionLayer(buffer.get());
+        collisionMask = buffer.getInt();
     }
 }
@@ -24,75 +24,305 @@
 
 package com.ray3k.vegetablecommand;
 
+import com.badlogic.ashley.utils.ImmutableArray;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.utils.Array;
-import java.util.Comparator;
-import java.util.Iterator;
 
 public class EntityManager {
+    public static final int MAX_LAYERS = 32;
     private final Array<Entity> entities;
+    private final SpatialHash spatialHash;
+    private final Array<Array<Entity>> layers;
+    private final Array<Entity> pendingSpawns;
+    private final Array<Entity> pendingRemovals;
+    private boolean ticking;
+    private float tickDelta;
+    private final RenderQueue renderQueue;
+    private final KinematicStore kinematics;
+    private final FamilyIndex families;
+    private PoseUpdater poseUpdater;
+    private final Array<SharedPose> sharedPoses;
+    private int nextId;
     
     public EntityManager() {
-        entities = new Array<Entity>();
+        entities = new Array<Entity>(false, 64);
+        pendingSpawns = new Array<Entity>();
+        pendingRemovals = new Array<Entity>();
+        ticking = false;
+        tickDelta = 0.0f;
+        renderQueue = new RenderQueue();
+        kinematics = new KinematicStore();
+        families = new FamilyIndex(this);
+        poseUpdater = new PoseUpdater();
+        sharedPoses = new Array<SharedPose>();
+        spatialHash = new SpatialHash();
+        layers = new Array<Array<Entity>>(MAX_LAYERS);
+        for (int i = 0; i < MAX_LAYERS; i++) {
+            layers.add(new Array<Entity>(false, 16));
+        }
     }
     
+    /**
+     * Spawns the entity immediately, or at the next {@link #flush()} if
+     * called while {@link #act(float)} is running.
+     */
     public void addEntity(Entity entity) {
-        entities.add(entity);
+        entity.id = nextId++;
+        if (ticking) {
+            pendingSpawns.add(entity);
+        } else {
+            insert(entity);
+        }
     }
     
-    public Array<Entity> getEntities() {
-        return new Array<Entity>(entities);
+    /**
+     * Called by {@link Entity#dispose()}. The entity stays in place, flagged
+     * destroyed, until the next {@link #flush()} if a tick is running.
+     */
+    void removeEntity(Entity entity) {
+        if (ticking) {
+            pendingRemovals.add(entity);
+        } else {
+            remove(entity);
+        }
     }
     
-    public void act(float delta) {
-        Iterator<Entity> iter = entities.iterator();
-        while (iter.hasNext()) {
-            Entity entity = iter.next();
+    /**
+     * Sync point that applies every queued removal and spawn. Removals swap
+     * the last entity into the freed slot, so each costs O(1).
+     */
+    public void flush() {
+        for (int i = 0; i < pendingRemovals.size; i++) {
+            remove(pendingRemovals.get(i));
+        }
+        pendingRemovals.clear();
+        
+        for (int i = 0; i < pendingSpawns.size; i++) {
+            Entity entity = pendingSpawns.get(i);
             if (!entity.isDestroyed()) {
-                entity.addXspeed(entity.getGravityX() * delta);
-                entity.addYspeed(entity.getGravityY() * delta);
-                
-                entity.addX(entity.getXspeed() * delta);
-                entity.addY(entity.getYspeed() * delta);
-                
-                entity.getCollisionBox().setPosition(entity.getX() + entity.getCollisionBoxX(), entity.getY() + entity.getCollisionBoxY());
-                entity.act(delta);
-                
-                for (int i = 0; i < entities.size ; i++) {
-                    if (!entity.isDestroyed() && entity.isCheckingCollisions()) {
-                        Entity other = entities.get(i);
-                        if (other.isCheckingCollisions()) {
-                            if (entity.getCollisionBox().overlaps(other.getCollisionBox())) {
-                                entity.collision(other);
-                            }
-                        }
-                    } else {
-                        break;
-                    }
-                }
+                insert(entity);
             } else {
-                iter.remove();
+                freeSlot(entity);
+                entity.recycle();
             }
         }
+        pendingSpawns.clear();
         
-        iter = entities.iterator();
-        while (iter.hasNext()) {
-            Entity entity = iter.next();
-            
-            entity.act_end(delta);
+        renderQueue.compact();
+    }
+    
+    private void insert(Entity entity) {
+        entity.index = entities.size;
+        entities.add(entity);
+        addToLayer(entity);
+        renderQueue.add(entity);
+        families.add(entity);
+    }
+    
+    private void remove(Entity entity) {
+        if (entity.index != -1) {
+            entities.removeIndex(entity.index);
+            if (entity.index < entities.size) {
+                entities.get(entity.index).index = entity.index;
+            }
+            entity.index = -1;
+            freeSlot(entity);
+            removeFromLayer(entity);
+            families.remove(entity);
+            renderQueue.remove(entity);
+            if (!ticking) {
+                renderQueue.compact();
+            }
+            entity.recycle();
         }
     }
     
-    public void draw(SpriteBatch spriteBatch, float delta) {
-        entities.sort(new Comparator<Entity>() {
-            @Override
-            public int compare(Entity o1, Entity o2) {
-                return o2.getDepth() - o1.getDepth();
+    private void freeSlot(Entity entity) {
+        if (entity.slot != -1) {
+            kinematics.free(entity.slot);
+            entity.slot = -1;
+        }
+    }
+    
+    void depthChanged(Entity entity, int oldDepth) {
+        if (entity.index != -1) {
+            renderQueue.move(entity, oldDepth);
+        }
+    }
+    
+    /**
+     * Returns the live, unordered members of a collision layer. The array
+     * must not be modified and may contain entities destroyed this tick.
+     */
+    public Array<Entity> getLayer(int layer) {
+        return layers.get(layer);
+    }
+    
+    void addToLayer(Entity entity) {
+        if (entity.index != -1 && entity.getCollisionLayer() != Entity.NO_LAYER) {
+            Array<Entity> layer = layers.get(entity.getCollisionLayer());
+            entity.layerIndex = layer.size;
+            layer.add(entity);
+        }
+    }
+    
+    void removeFromLayer(Entity entity) {
+        if (entity.layerIndex != -1) {
+            Array<Entity> layer = layers.get(entity.getCollisionLayer());
+            layer.removeIndex(entity.layerIndex);
+            if (entity.layerIndex < layer.size) {
+                layer.get(entity.layerIndex).layerIndex = entity.layerIndex;
+            }
+            entity.layerIndex = -1;
+        }
+    }
+    
+    /**
+     * Number of entities visible through {@link #getEntity(int)}. It does not
+     * change during a tick since spawns are deferred to {@link #flush()}.
+     */
+    public int getEntityCount() {
+        return entities.size;
+    }
+    
+    /**
+     * Indexed, allocation free access to the live entities. Indices are stable
+     * for the whole tick: destroyed entities stay in place until
+     * {@link #flush()}, so callers should check {@link Entity#isDestroyed()}.
+     */
+    public Entity getEntity(int index) {
+        return entities.get(index);
+    }
+    
+    public void act(float delta) {
+        flush();
+        ticking = true;
+        tickDelta = delta;
+        
+        kinematics.integrate(delta);
+        for (int i = 0; i < sharedPoses.size; i++) {
+            sharedPoses.get(i).advance(delta);
+        }
+        poseUpdater.update(families.get(SkeletonEntity.class), delta);
+        
+        for (int i = 0; i < entities.size; i++) {
+            Entity entity = entities.get(i);
+            if (!entity.isDestroyed()) {
+                entity.act(delta);
             }
-        });
+        }
         
-        for (Entity entity : entities) {
+        spatialHash.clear();
+        for (int i = 0; i < entities.size; i++) {
+            Entity entity = entities.get(i);
+            if (!entity.isDestroyed() && entity.isCheckingCollisions()) {
+                spatialHash.insert(entity);
+            }
+        }
+        spatialHash.reportCollisions();
+        
+        for (int i = 0; i < entities.size; i++) {
+            Entity entity = entities.get(i);
             if (!entity.isDestroyed()) {
+                entity.act_end(delta);
+            }
+        }
+        
+        ticking = false;
+        flush();
+    }
+    
+    /**
+     * Puts every layer and family back in the order recorded in each
+     * entity's layer index and family slots, as read from a snapshot. The
+     * unordered arrays otherwise depend on the spawn and despawn history, and
+     * iteration order decides things like explosion score multipliers.
+     */
+    void restoreOrder() {
+        for (int i = 0; i < layers.size; i++) {
+            Array<Entity> layer = layers.get(i);
+            for (int j = 0; j < layer.size; j++) {
+                Entity entity = layer.get(j);
+                while (entity.layerIndex != j) {
+                    Entity displaced = layer.get(entity.layerIndex);
+                    layer.set(entity.layerIndex, entity);
+                    layer.set(j, displaced);
+                    entity = displaced;
+                }
+            }
+        }
+        families.restoreOrder();
+    }
+    
+    boolean isTicking() {
+        return ticking;
+    }
+    
+    FamilyIndex getFamilies() {
+        return families;
+    }
+    
+    public int getNextId() {
+        return nextId;
+    }
+    
+    public void setNextId(int nextId) {
+        this.nextId = nextId;
+    }
+    
+    public SpatialHash getSpatialHash() {
+        return spatialHash;
+    }
+    
+    /**
+     * Live view of every entity that is an instance of the given class or
+     * interface. See {@link FamilyIndex#get(Class)}.
+     */
+    public <T> ImmutableArray<T> getFamily(Class<T> type) {
+        return families.get(type);
+    }
+    
+    /**
+     * The pose instances of the prefab share in this manager, created on
+     * first use.
+     */
+    public SharedPose getSharedPose(SkeletonPrefab prefab) {
+        for (int i = 0; i < sharedPoses.size; i++) {
+            if (sharedPoses.get(i).getPrefab() == prefab) {
+                return sharedPoses.get(i);
+            }
+        }
+        SharedPose sharedPose = new SharedPose(prefab);
+        sharedPoses.add(sharedPose);
+        return sharedPose;
+    }
+    
+    public PoseUpdater getPoseUpdater() {
+        return poseUpdater;
+    }
+    
+    public void setPoseUpdater(PoseUpdater poseUpdater) {
+        this.poseUpdater = poseUpdater;
+    }
+    
+    public KinematicStore getKinematics() {
+        return kinematics;
+    }
+    
+    public RenderQueue getRenderQueue() {
+        return renderQueue;
+    }
+    
+    /**
+     * Draws every live entity. {@code alpha} is the fraction of a tick elapsed
+     * since the last {@link #act(float)}, used to extrapolate positions.
+     */
+    public void draw(SpriteBatch spriteBatch, float alpha) {
+        float delta = alpha * tickDelta;
+        for (int i = 0; i < renderQueue.getDepthCount(); i++) {
+            Array<Entity> bucket = renderQueue.getBucket(renderQueue.getDepth(i));
+            for (int j = 0; j < bucket.size; j++) {
+                Entity entity = bucket.get(j);
                 if (entity.getTextureRegion() != null) {
                     spriteBatch.draw(entity.getTextureRegion(), entity.getX() + entity.getXspeed() * delta, entity.getY() + entity.getYspeed() * delta, entity.getOffsetX(), entity.getOffsetY(), entity.getTextureRegion().getRegionWidth(), entity.getTextureRegion().getRegionHeight(), entity.getScaleX(), entity.getScaleY(), entity.getRotation());
                 }
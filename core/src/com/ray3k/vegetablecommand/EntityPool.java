@@ -0,0 +1,86 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.vegetablecommand;
+
+import com.badlogic.gdx.utils.Pool;
+
+/**
+ * {@link Pool} of reusable entities that keeps per-type statistics.
+ */
+public abstract class EntityPool<T extends Entity> extends Pool<T> {
+    private final String name;
+    private int created;
+    private int obtained;
+    private int freed;
+
+    public EntityPool(String name) {
+        this.name = name;
+    }
+
+    @Override
+    protected T newObject() {
+        created++;
+        return create();
+    }
+    
+    protected abstract T create();
+
+    @Override
+    public T obtain() {
+        obtained++;
+        return super.obtain();
+    }
+
+    @Override
+    public void free(T object) {
+        freed++;
+        super.free(object);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getCreated() {
+        return created;
+    }
+
+    public int getObtained() {
+        return obtained;
+    }
+
+    public int getFreed() {
+        return freed;
+    }
+    
+    public int getInUse() {
+        return obtained - freed;
+    }
+
+    @Override
+    public String toString() {
+        return name + ": created " + created + ", obtained " + obtained + ", in use " + getInUse() + ", free " + getFree() + ", peak free " + peak;
+    }
+}
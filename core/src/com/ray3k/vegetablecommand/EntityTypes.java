@@ -0,0 +1,103 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ray3k.vegetablecommand;
+
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.ray3k.vegetablecommand.entities.CityEntity;
+import com.ray3k.vegetablecommand.entities.EnemyControllerEntity;
+import com.ray3k.vegetablecommand.entities.ExplosionEntity;
+import com.ray3k.vegetablecommand.entities.GameOverTimerEntity;
+import com.ray3k.vegetablecommand.entities.MissileEntity;
+import com.ray3k.vegetablecommand.entities.PlaneEntity;
+import com.ray3k.vegetablecommand.entities.TurretEntity;
+
+/**
+ * Type codes of the entities in snapshots and state streams. Never renumber them.
+ */
+final class EntityTypes {
+    static final byte CITY = 0;
+    static final byte TURRET = 1;
+    static final byte MISSILE = 2;
+    static final byte EXPLOSION = 3;
+    static final byte PLANE = 4;
+    static final byte ENEMY_CONTROLLER = 5;
+    static final byte GAME_OVER_TIMER = 6;
+    static final byte NONE = -1;
+    
+    private EntityTypes() {
+    }
+    
+    /**
+     * @return the type code of the entity, or {@link #NONE} for entities that
+     * only exist for presentation.
+     */
+    static byte getType(Entity entity) {
+        if (entity instanceof CityEntity) {
+            return CITY;
+        } else if (entity instanceof TurretEntity) {
+            return TURRET;
+        } else if (entity instanceof MissileEntity) {
+            return MISSILE;
+        } else if (entity instanceof ExplosionEntity) {
+            return EXPLOSION;
+        } else if (entity instanceof PlaneEntity) {
+            return PLANE;
+        } else if (entity instanceof EnemyControllerEntity) {
+            return ENEMY_CONTROLLER;
+        } else if (entity instanceof GameOverTimerEntity) {
+            return GAME_OVER_TIMER;
+        } else {
+            return NONE;
+        }
+    }
+    
+    /**
+     * Spawns a blank entity of the given type into the world, ready for
+     * {@link Entity#readState(java.nio.ByteBuffer)}.
+     */
+    static Entity create(GameWorld world, byte type) {
+        switch (type) {
+            case CITY:
+                return new CityEntity(world);
+            case TURRET:
+                return new TurretEntity(world);
+            case MISSILE:
+                MissileEntity missile = world.getMissilePool().obtain();
+                missile.spawn();
+                return missile;
+            case EXPLOSION:
+                ExplosionEntity explosion = world.getExplosionPool().obtain();
+                explosion.spawn();
+                return explosion;
+            case PLANE:
+                return new PlaneEntity(world);
+            case ENEMY_CONTROLLER:
+                return new EnemyControllerEntity(world);
+            case GAME_OVER_TIMER:
+                return new GameOverTimerEntity(world, 0.0f);
+            default:
+                throw new GdxRuntimeException("Unknown entity type: " + type);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.vegetablecommand;
+
+import com.badlogic.ashley.utils.ImmutableArray;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * Live lists of entities by class or interface, maintained on spawn and despawn.
+ */
+public class FamilyIndex {
+    private final EntityManager manager;
+    private final ObjectMap<Class<?>, Integer> familyIds;
+    private final Array<Class<?>> types;
+    private final Array<Array<Entity>> members;
+    private final Array<ImmutableArray<Entity>> views;
+    private final ObjectMap<Class<?>, IntArray> memberships;
+
+    public FamilyIndex(EntityManager manager) {
+        this.manager = manager;
+        familyIds = new ObjectMap<Class<?>, Integer>();
+        types = new Array<Class<?>>();
+        members = new Array<Array<Entity>>();
+        views = new Array<ImmutableArray<Entity>>();
+        memberships = new ObjectMap<Class<?>, IntArray>();
+    }
+    
+    /**
+     * Returns the live, unordered members of the family. It may contain
+     * entities destroyed during the current tick.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> ImmutableArray<T> get(Class<T> type) {
+        Integer id = familyIds.get(type);
+        if (id == null) {
+            id = register(type);
+        }
+        return (ImmutableArray<T>) views.get(id);
+    }
+    
+    private int register(Class<?> type) {
+        int id = types.size;
+        Array<Entity> family = new Array<Entity>(false, 16);
+        familyIds.put(type, id);
+        types.add(type);
+        members.add(family);
+        views.add(new ImmutableArray<Entity>(family));
+        
+        for (ObjectMap.Entry<Class<?>, IntArray> entry : memberships.entries()) {
+            if (type.isAssignableFrom(entry.key)) {
+                entry.value.add(id);
+            }
+        }
+        
+        for (int i = 0; i < manager.getEntityCount(); i++) {
+            Entity entity = manager.getEntity(i);
+            if (type.isInstance(entity)) {
+                entity.familySlots.add(family.size);
+                family.add(entity);
+            }
+        }
+        return id;
+    }
+    
+    int getTypeCount() {
+        return types.size;
+    }
+    
+    Class<?> getType(int id) {
+        return types.get(id);
+    }
+    
+    /**
+     * Registers the family ahead of time, so family ids match those of
+     * another index that registered the same types in the same order.
+     */
+    void register(String className) {
+        Class<?> type;
+        try {
+            type = Class.forName(className);
+        } catch (ClassNotFoundException e) {
+            throw new GdxRuntimeException("Unknown family type: " + className, e);
+        }
+        if (!familyIds.containsKey(type)) {
+            register(type);
+        }
+    }
+    
+    /**
+     * See {@link EntityManager#restoreOrder()}.
+     */
+    void restoreOrder() {
+        for (int id = 0; id < members.size; id++) {
+            Array<Entity> family = members.get(id);
+            for (int j = 0; j < family.size; j++) {
+                Entity entity = family.get(j);
+                int target = getSlot(entity, id);
+                while (target != j) {
+                    Entity displaced = family.get(target);
+                    family.set(target, entity);
+                    family.set(j, displaced);
+                    entity = displaced;
+                    target = getSlot(entity, id);
+                }
+            }
+        }
+    }
+    
+    private int getSlot(Entity entity, int id) {
+        return entity.familySlots.get(getMembership(entity.getClass()).indexOf(id));
+    }
+    
+    private IntArray getMembership(Class<?> type) {
+        IntArray membership = memberships.get(type);
+        if (membership == null) {
+            membership = new IntArray();
+            for (int i = 0; i < types.size; i++) {
+                if (types.get(i).isAssignableFrom(type)) {
+                    membership.add(i);
+                }
+            }
+            memberships.put(type, membership);
+        }
+        return membership;
+    }
+    
+    void add(Entity entity) {
+        IntArray membership = getMembership(entity.getClass());
+        for (int i = 0; i < membership.size; i++) {
+            Array<Entity> family = members.get(membership.get(i));
+            entity.familySlots.add(family.size);
+            family.add(entity);
+        }
+    }
+    
+    void remove(Entity entity) {
+        IntArray membership = getMembership(entity.getClass());
+        for (int i = 0; i < entity.familySlots.size; i++) {
+            int id = membership.get(i);
+            int slot = entity.familySlots.get(i);
+            Array<Entity> family = members.get(id);
+            family.removeIndex(slot);
+            if (slot < family.size) {
+                Entity moved = family.get(slot);
+                IntArray movedMembership = getMembership(moved.getClass());
+                moved.familySlots.set(movedMembership.indexOf(id), slot);
+            }
+        }
+        entity.familySlots.clear();
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ray3k.vegetablecommand;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.IntMap;
+import com.ray3k.vegetablecommand.entities.CityEntity;
+import com.ray3k.vegetablecommand.entities.EnemyControllerEntity;
+import com.ray3k.vegetablecommand.entities.TurretEntity;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Versioned binary snapshot of a {@link GameWorld}, taken between ticks.
+ */
+public class GameSnapshot {
+    public static final int MAGIC = 0x5643534E;
+    public static final int VERSION = 5;
+    public static final int DEFAULT_CAPACITY = 16 * 1024;
+    private ByteBuffer buffer;
+
+    public GameSnapshot() {
+        this(DEFAULT_CAPACITY);
+    }
+    
+    public GameSnapshot(int capacity) {
+        buffer = ByteBuffer.allocateDirect(capacity);
+    }
+    
+    /**
+     * Writes the world into the reusable buffer, growing it if the world no
+     * longer fits.
+     * @return the buffer, positioned at the start of the snapshot. Only valid
+     * until the next capture.
+     */
+    public ByteBuffer capture(GameWorld world) {
+        while (true) {
+            buffer.clear();
+            try {
+                write(world, buffer);
+                buffer.flip();
+                return buffer;
+            } catch (BufferOverflowException e) {
+                buffer = ByteBuffer.allocateDirect(buffer.capacity() * 2);
+            }
+        }
+    }
+    
+    /**
+     * Copies the last capture into a new array, e.g. to keep it or save it to
+     * a file.
+     */
+    public byte[] toBytes() {
+        byte[] bytes = new byte[buffer.limit()];
+        buffer.get(bytes);
+        buffer.rewind();
+        return bytes;
+    }
+    
+    public static void write(GameWorld world, ByteBuffer buffer) {
+        EntityManager manager = world.getEntityManager();
+        if (manager.isTicking()) {
+            throw new GdxRuntimeException("Snapshots can only be taken between ticks.");
+        }
+        
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putLong(world.getSeed());
+        buffer.putInt(world.getWorldWidth());
+        buffer.putInt(world.getWorldHeight());
+        buffer.put((byte) world.getPlayerCount());
+        world.writeState(buffer);
+        buffer.putInt(manager.getNextId());
+        
+        FamilyIndex families = manager.getFamilies();
+        buffer.put((byte) families.getTypeCount());
+        for (int i = 0; i < families.getTypeCount(); i++) {
+            String name = families.getType(i).getName();
+            buffer.putShort((short) name.length());
+            for (int j = 0; j < name.length(); j++) {
+                buffer.putChar(name.charAt(j));
+            }
+        }
+        
+        int countPosition = buffer.position();
+        buffer.putInt(0);
+        int count = 0;
+        for (int i = 0; i < manager.getEntityCount(); i++) {
+            Entity entity = manager.getEntity(i);
+            byte type = EntityTypes.getType(entity);
+            if (type == EntityTypes.NONE) {
+                if (entity.getCollisionLayer() != Entity.NO_LAYER || entity.familySlots.size > 0) {
+                    throw new GdxRuntimeException("Cannot snapshot entity: " + entity.getClass().getName());
+                }
+                continue;
+            }
+            
+            buffer.put(type);
+            buffer.putInt(entity.id);
+            buffer.putInt(entity.layerIndex);
+            buffer.put((byte) entity.familySlots.size);
+            for (int j = 0; j < entity.familySlots.size; j++) {
+                buffer.putInt(entity.familySlots.get(j));
+            }
+            entity.writeState(buffer);
+            count++;
+        }
+        buffer.putInt(countPosition, count);
+        
+        writeIds(world.getCities(), buffer);
+        writeIds(world.getTurrets(), buffer);
+        buffer.putInt(world.getEnemyController() == null ? -1 : world.getEnemyController().getId());
+    }
+    
+    /**
+     * Builds a new world from a snapshot. The world is not started and has no
+     * listener, input source or recorder.
+     */
+    public static GameWorld read(Core core, ByteBuffer buffer) {
+        if (buffer.getInt() != MAGIC) {
+            throw new GdxRuntimeException("Not a game snapshot.");
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new GdxRuntimeException("Unsupported snapshot version: " + version);
+        }
+        
+        long seed = buffer.getLong();
+        int worldWidth = buffer.getInt();
+        int worldHeight = buffer.getInt();
+        int playerCount = buffer.get();
+        GameWorld world = new GameWorld(core, seed, worldWidth, worldHeight, playerCount);
+        world.readState(buffer);
+        EntityManager manager = world.getEntityManager();
+        int nextId = buffer.getInt();
+        
+        FamilyIndex families = manager.getFamilies();
+        int typeCount = buffer.get();
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < typeCount; i++) {
+            builder.setLength(0);
+            int length = buffer.getShort();
+            for (int j = 0; j < length; j++) {
+                builder.append(buffer.getChar());
+            }
+            families.register(builder.toString());
+        }
+        
+        int count = buffer.getInt();
+        IntMap<Entity> entities = new IntMap<Entity>(count);
+        IntArray familySlots = new IntArray();
+        for (int i = 0; i < count; i++) {
+            Entity entity = EntityTypes.create(world, buffer.get());
+            entity.id = buffer.getInt();
+            int layerIndex = buffer.getInt();
+            familySlots.clear();
+            for (int j = buffer.get(); j > 0; j--) {
+                familySlots.add(buffer.getInt());
+            }
+            entity.readState(buffer);
+            entity.layerIndex = layerIndex;
+            entity.familySlots.clear();
+            entity.familySlots.addAll(familySlots);
+            entities.put(entity.id, entity);
+        }
+        manager.restoreOrder();
+        manager.setNextId(nextId);
+        
+        for (int i = buffer.getShort(); i > 0; i--) {
+            world.getCities().add((CityEntity) entities.get(buffer.getInt()));
+        }
+        for (int i = buffer.getShort(); i > 0; i--) {
+            world.getTurrets().add((TurretEntity) entities.get(buffer.getInt()));
+        }
+        world.setEnemyController((EnemyControllerEntity) entities.get(buffer.getInt()));
+        return world;
+    }
+    
+    private static void writeIds(Array<? extends Entity> array, ByteBuffer buffer) {
+        buffer.putShort((short) array.size);
+        for (int i = 0; i < array.size; i++) {
+            buffer.putInt(array.get(i).getId());
+        }
+    }
+    
+    public ByteBuffer getBuffer() {
+        return buffer;
+    }
+}
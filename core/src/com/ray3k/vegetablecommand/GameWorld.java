@@ -0,0 +1,491 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.vegetablecommand;
+
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.ray3k.vegetablecommand.entities.CityEntity;
+import com.ray3k.vegetablecommand.entities.EnemyControllerEntity;
+import com.ray3k.vegetablecommand.entities.ExplosionEntity;
+import com.ray3k.vegetablecommand.entities.MissileEntity;
+import com.ray3k.vegetablecommand.entities.TurretEntity;
+import java.nio.ByteBuffer;
+
+/**
+ * One self-contained game session: the entities, randomness, input and scoring.
+ */
+public class GameWorld {
+    private final Core core;
+    private final long seed;
+    private final int worldWidth;
+    private final int worldHeight;
+    private final EntityManager entityManager;
+    private final RandomService random;
+    private final EntityPool<MissileEntity> missilePool;
+    private final EntityPool<ExplosionEntity> explosionPool;
+    private final Array<TurretEntity> turrets;
+    private final Array<CityEntity> cities;
+    private final int playerCount;
+    private final TickInput[] tickInputs;
+    private final int[] turretCounters;
+    private final boolean[] fired;
+    private final Vector2 temp1;
+    private final Vector2 temp2;
+    private GameListener listener;
+    private InputSource inputSource;
+    private InputRecorder recorder;
+    private StateStreamRecorder stateRecorder;
+    private KeyframeRecorder keyframeRecorder;
+    private EnemyControllerEntity enemyController;
+    private int score;
+    private float difficulty;
+    private float difficultyIncrement;
+    private int level;
+    private boolean gameOver;
+    private long tick;
+    public static final float DEFAULT_DIFFICULTY = 1.0f;
+    public static final float DEFAULT_DIFFICULTY_INCREMENT = .1f;
+    
+    public static enum Team {
+        PLAYER, ENEMY;
+        
+        private static final Team[] VALUES = values();
+        
+        /**
+         * @return the team with the given ordinal, or null for -1.
+         */
+        public static Team get(int ordinal) {
+            return ordinal == -1 ? null : VALUES[ordinal];
+        }
+        
+        public int getLayer() {
+            return ordinal();
+        }
+        
+        public Team getOpponent() {
+            return this == PLAYER ? ENEMY : PLAYER;
+        }
+    }
+    
+    public static enum Sound {
+        EXPLOSION, CITY, MISSILE
+    }
+
+    public GameWorld(Core core, long seed, int worldWidth, int worldHeight) {
+        this(core, seed, worldWidth, worldHeight, 1);
+    }
+    
+    /**
+     * @param playerCount number of players sharing the turrets. Turrets are
+     * dealt out in turn, and each player fires and aims only their own.
+     */
+    public GameWorld(Core core, long seed, int worldWidth, int worldHeight, int playerCount) {
+        this.core = core;
+        this.playerCount = playerCount;
+        this.seed = seed;
+        this.worldWidth = worldWidth;
+        this.worldHeight = worldHeight;
+        entityManager = new EntityManager();
+        random = new RandomService(seed);
+        turrets = new Array<TurretEntity>();
+        cities = new Array<CityEntity>();
+        tickInputs = new TickInput[playerCount];
+        for (int i = 0; i < playerCount; i++) {
+            tickInputs[i] = new TickInput();
+        }
+        turretCounters = new int[playerCount];
+        fired = new boolean[playerCount];
+        temp1 = new Vector2();
+        temp2 = new Vector2();
+        difficulty = DEFAULT_DIFFICULTY;
+        difficultyIncrement = DEFAULT_DIFFICULTY_INCREMENT;
+        
+        missilePool = new EntityPool<MissileEntity>("missiles") {
+            @Override
+            protected MissileEntity create() {
+                return new MissileEntity(GameWorld.this);
+            }
+        };
+        
+        explosionPool = new EntityPool<ExplosionEntity>("explosions") {
+            @Override
+            protected ExplosionEntity create() {
+                return new ExplosionEntity(GameWorld.this);
+            }
+        };
+    }
+    
+    /**
+     * Spawns the cities, turrets and first wave.
+     */
+    public void start() {
+        spawnPlayer();
+        newLevel();
+    }
+    
+    public void act(float delta) {
+        if (inputSource != null) {
+            inputSource.poll(tickInputs[0]);
+        }
+        if (recorder != null) {
+            recorder.record(tickInputs[0]);
+        }
+        
+        entityManager.act(delta);
+        
+        for (int player = 0; player < playerCount; player++) {
+            if (tickInputs[player].isFiring()) {
+                if (!fired[player]) {
+                    TurretEntity turret = getNextTurret(player);
+                    if (turret != null) {
+                        turret.fire();
+                        fired[player] = true;
+                    }
+                }
+            } else {
+                fired[player] = false;
+            }
+        }
+        
+        tick++;
+        if (stateRecorder != null) {
+            stateRecorder.record(this);
+        }
+        if (keyframeRecorder != null) {
+            keyframeRecorder.record(this);
+        }
+    }
+    
+    /**
+     * Picks the player's turrets in turn, in spawn order.
+     * @return the turret or null if the player has none left.
+     */
+    private TurretEntity getNextTurret(int player) {
+        int count = 0;
+        for (int i = 0; i < turrets.size; i++) {
+            if (turrets.get(i).getOwner() == player) {
+                count++;
+            }
+        }
+        if (count == 0) {
+            return null;
+        }
+        
+        turretCounters[player] %= count;
+        int target = turretCounters[player]++;
+        for (int i = 0; i < turrets.size; i++) {
+            TurretEntity turret = turrets.get(i);
+            if (turret.getOwner() == player && target-- == 0) {
+                return turret;
+            }
+        }
+        return null;
+    }
+    
+    public void draw(SpriteBatch spriteBatch, float alpha) {
+        entityManager.draw(spriteBatch, alpha);
+    }
+    
+    private void spawnPlayer() {
+        float border = 40.0f;
+        
+        boolean spawnCity = true;
+        int turretIndex = 0;
+        
+        for (int i = 0; i < 7; i++) {
+            float x = border + i * (worldWidth - border * 2) / 6;
+            if (spawnCity) {
+                CityEntity city = new CityEntity(this);
+                city.setPosition(x, 110.0f);
+                cities.add(city);
+            } else {
+                TurretEntity turret = new TurretEntity(this);
+                turret.setPosition(x, 110.0f);
+                turret.setOwner(turretIndex++ % playerCount);
+                turrets.add(turret);
+            }
+            spawnCity = !spawnCity;
+        }
+    }
+
+    public MissileEntity spawnMissile(float originX, float originY, float targetX, float targetY, float speed) {
+        MissileEntity missile = missilePool.obtain();
+        missile.init(originX, originY, targetX, targetY, speed);
+        return missile;
+    }
+    
+    public ExplosionEntity spawnExplosion(float x, float y, Team team) {
+        ExplosionEntity explosion = explosionPool.obtain();
+        explosion.init(x, y, team);
+        return explosion;
+    }
+    
+    public void newLevel() {
+        enemyController = new EnemyControllerEntity(this, difficulty);
+        difficulty += difficultyIncrement;
+        level++;
+    }
+    
+    public void gameOver() {
+        if (gameOver) {
+            return;
+        }
+        
+        gameOver = true;
+        if (listener != null) {
+            listener.gameOver(this);
+        }
+    }
+
+    /**
+     * Writes the session scalars and random streams for a
+     * {@link GameSnapshot}. Entities are written separately.
+     */
+    public void writeState(ByteBuffer buffer) {
+        buffer.putLong(tick);
+        buffer.putInt(score);
+        buffer.putInt(level);
+        buffer.putFloat(difficulty);
+        buffer.putFloat(difficultyIncrement);
+        buffer.put((byte) (gameOver ? 1 : 0));
+        for (int i = 0; i < playerCount; i++) {
+            buffer.putInt(turretCounters[i]);
+            buffer.put((byte) (fired[i] ? 1 : 0));
+            buffer.put((byte) (tickInputs[i].isFiring() ? 1 : 0));
+            buffer.putInt(tickInputs[i].getPointerX());
+            buffer.putInt(tickInputs[i].getPointerY());
+        }
+        random.writeState(buffer);
+    }
+    
+    public void readState(ByteBuffer buffer) {
+        tick = buffer.getLong();
+        score = buffer.getInt();
+        level = buffer.getInt();
+        difficulty = buffer.getFloat();
+        difficultyIncrement = buffer.getFloat();
+        gameOver = buffer.get() != 0;
+        for (int i = 0; i < playerCount; i++) {
+            turretCounters[i] = buffer.getInt();
+            fired[i] = buffer.get() != 0;
+            boolean firing = buffer.get() != 0;
+            int pointerX = buffer.getInt();
+            tickInputs[i].set(firing, pointerX, buffer.getInt());
+        }
+        random.readState(buffer);
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public void setScore(int score) {
+        this.score = score;
+        if (listener != null) {
+            listener.scoreChanged(this, score);
+        }
+    }
+    
+    public void addScore(int score) {
+        setScore(this.score + score);
+    }
+    
+    public void playSound(Sound sound) {
+        if (listener != null) {
+            listener.playSound(this, sound);
+        }
+    }
+    
+    public void missileCountChanged(TurretEntity turret) {
+        if (listener != null) {
+            listener.missileCountChanged(this, turret);
+        }
+    }
+    
+    public void turretDestroyed(TurretEntity turret) {
+        if (listener != null) {
+            listener.turretDestroyed(this, turret);
+        }
+    }
+
+    public Core getCore() {
+        return core;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getWorldWidth() {
+        return worldWidth;
+    }
+
+    public int getWorldHeight() {
+        return worldHeight;
+    }
+
+    public EntityManager getEntityManager() {
+        return entityManager;
+    }
+
+    public RandomService getRandom() {
+        return random;
+    }
+
+    public EntityPool<MissileEntity> getMissilePool() {
+        return missilePool;
+    }
+
+    public EntityPool<ExplosionEntity> getExplosionPool() {
+        return explosionPool;
+    }
+
+    public Array<TurretEntity> getTurrets() {
+        return turrets;
+    }
+
+    public Array<CityEntity> getCities() {
+        return cities;
+    }
+
+    public EnemyControllerEntity getEnemyController() {
+        return enemyController;
+    }
+
+    void setEnemyController(EnemyControllerEntity enemyController) {
+        this.enemyController = enemyController;
+    }
+
+    /**
+     * Difficulty of the next wave. Set before {@link #start()} to change the
+     * starting difficulty.
+     */
+    public float getDifficulty() {
+        return difficulty;
+    }
+
+    public void setDifficulty(float difficulty) {
+        this.difficulty = difficulty;
+    }
+
+    public float getDifficultyIncrement() {
+        return difficultyIncrement;
+    }
+
+    /**
+     * Difficulty added after every wave.
+     */
+    public void setDifficultyIncrement(float difficultyIncrement) {
+        this.difficultyIncrement = difficultyIncrement;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Number of ticks simulated since {@link #start()}.
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    public TickInput getTickInput() {
+        return tickInputs[0];
+    }
+
+    /**
+     * Input of the given player for the current tick. Only the first player's
+     * is polled from the {@link InputSource}; the others are set by whoever
+     * drives the world, such as a {@link CoopServer}.
+     */
+    public TickInput getTickInput(int player) {
+        return tickInputs[player];
+    }
+
+    public int getPlayerCount() {
+        return playerCount;
+    }
+
+    public InputSource getInputSource() {
+        return inputSource;
+    }
+
+    public void setInputSource(InputSource inputSource) {
+        this.inputSource = inputSource;
+    }
+
+    public InputRecorder getRecorder() {
+        return recorder;
+    }
+
+    public void setRecorder(InputRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    public StateStreamRecorder getStateRecorder() {
+        return stateRecorder;
+    }
+
+    public void setStateRecorder(StateStreamRecorder stateRecorder) {
+        this.stateRecorder = stateRecorder;
+    }
+
+    public KeyframeRecorder getKeyframeRecorder() {
+        return keyframeRecorder;
+    }
+
+    public void setKeyframeRecorder(KeyframeRecorder keyframeRecorder) {
+        this.keyframeRecorder = keyframeRecorder;
+    }
+
+    public GameListener getListener() {
+        return listener;
+    }
+
+    public void setListener(GameListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Scratch vector for entity logic. Only valid until the next call into
+     * another entity.
+     */
+    public Vector2 getTemp1() {
+        return temp1;
+    }
+
+    /**
+     * Second scratch vector, see {@link #getTemp1()}.
+     */
+    public Vector2 getTemp2() {
+        return temp2;
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.vegetablecommand;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.ByteArray;
+
+/**
+ * Records the per tick player input of a session for {@link ReplayInputSource}.
+ */
+public class InputRecorder {
+    public static final int MAGIC = 0x5643494E;
+    public static final int VERSION = 1;
+    static final int FLAG_FIRING = 1;
+    static final int FLAG_X = 2;
+    static final int FLAG_Y = 4;
+    static final int FLAG_END = 8;
+    private final ByteArray bytes;
+    private final TickInput previous;
+    private int tick;
+    private int lastChange;
+    private boolean recording;
+
+    public InputRecorder() {
+        bytes = new ByteArray(1024);
+        previous = new TickInput();
+    }
+    
+    public void begin(long seed, int tickRate, int worldWidth, int worldHeight) {
+        bytes.clear();
+        previous.clear();
+        tick = 0;
+        lastChange = 0;
+        recording = true;
+        
+        VarInt.writeFixedInt(bytes, MAGIC);
+        VarInt.writeFixedInt(bytes, VERSION);
+        VarInt.writeFixedLong(bytes, seed);
+        VarInt.write(bytes, tickRate);
+        VarInt.write(bytes, worldWidth);
+        VarInt.write(bytes, worldHeight);
+    }
+    
+    public void record(TickInput input) {
+        if (!recording) {
+            return;
+        }
+        
+        int flags = input.isFiring() ? FLAG_FIRING : 0;
+        int dx = input.getPointerX() - previous.getPointerX();
+        int dy = input.getPointerY() - previous.getPointerY();
+        if (dx != 0) {
+            flags |= FLAG_X;
+        }
+        if (dy != 0) {
+            flags |= FLAG_Y;
+        }
+        
+        if (tick == 0 || dx != 0 || dy != 0 || input.isFiring() != previous.isFiring()) {
+            VarInt.write(bytes, tick - lastChange);
+            bytes.add((byte) flags);
+            if (dx != 0) {
+                VarInt.writeSigned(bytes, dx);
+            }
+            if (dy != 0) {
+                VarInt.writeSigned(bytes, dy);
+            }
+            lastChange = tick;
+            previous.set(input);
+        }
+        
+        tick++;
+    }
+    
+    public void end() {
+        if (!recording) {
+            return;
+        }
+        
+        VarInt.write(bytes, tick - lastChange);
+        bytes.add((byte) FLAG_END);
+        recording = false;
+    }
+    
+    public void save(FileHandle file) {
+        file.writeBytes(toBytes(), false);
+    }
+    
+    public byte[] toBytes() {
+        return bytes.toArray();
+    }
+
+    public boolean isRecording() {
+        return recording;
+    }
+
+    public int getTick() {
+        return tick;
+    }
+    
+    public int getSize() {
+        return bytes.size;
+    }
+}
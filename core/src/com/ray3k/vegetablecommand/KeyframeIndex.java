@@ -0,0 +1,127 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ray3k.vegetablecommand;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import java.nio.ByteBuffer;
+
+/**
+ * Seeks replays by restoring the nearest keyframe written by {@link KeyframeRecorder}.
+ */
+public class KeyframeIndex {
+    private final byte[] bytes;
+    private final int interval;
+    private final int[] ticks;
+    private final int[] offsets;
+    private final int[] lengths;
+    private final int dataStart;
+
+    public KeyframeIndex(byte[] bytes) {
+        this.bytes = bytes;
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (buffer.getInt() != KeyframeRecorder.MAGIC) {
+            throw new GdxRuntimeException("Not a keyframe file.");
+        }
+        int version = buffer.getInt();
+        if (version != KeyframeRecorder.VERSION) {
+            throw new GdxRuntimeException("Unsupported keyframe file version: " + version);
+        }
+        interval = VarInt.read(buffer);
+        int count = VarInt.read(buffer);
+        ticks = new int[count];
+        offsets = new int[count];
+        lengths = new int[count];
+        for (int i = 0; i < count; i++) {
+            ticks[i] = VarInt.read(buffer);
+            offsets[i] = VarInt.read(buffer);
+            lengths[i] = VarInt.read(buffer);
+        }
+        dataStart = buffer.position();
+    }
+    
+    public static KeyframeIndex load(FileHandle file) {
+        return new KeyframeIndex(file.readBytes());
+    }
+    
+    /**
+     * @return the index of the last keyframe at or before the tick, or -1 if
+     * there is none.
+     */
+    public int find(long tick) {
+        int low = 0;
+        int high = ticks.length - 1;
+        int found = -1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (ticks[middle] <= tick) {
+                found = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return found;
+    }
+    
+    /**
+     * Builds a new world from the keyframe, see
+     * {@link GameSnapshot#read(Core, ByteBuffer)}.
+     */
+    public GameWorld restore(Core core, int index) {
+        return GameSnapshot.read(core, ByteBuffer.wrap(bytes, dataStart + offsets[index], lengths[index]));
+    }
+    
+    /**
+     * Restores the nearest keyframe and fast-forwards the replay to the given
+     * tick. The replay is left as the world's input source, positioned to
+     * continue from there.
+     */
+    public GameWorld seek(Core core, ReplayInputSource replay, long tick, float delta) {
+        int index = find(tick);
+        if (index == -1) {
+            throw new GdxRuntimeException("No keyframe at or before tick " + tick);
+        }
+        
+        GameWorld world = restore(core, index);
+        replay.seek(ticks[index]);
+        world.setInputSource(replay);
+        while (world.getTick() < tick && !world.isGameOver()) {
+            world.act(delta);
+        }
+        return world;
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    public int getKeyframeCount() {
+        return ticks.length;
+    }
+
+    public int getTick(int index) {
+        return ticks[index];
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ray3k.vegetablecommand;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.ByteArray;
+import com.badlogic.gdx.utils.IntArray;
+import java.nio.ByteBuffer;
+
+/**
+ * Captures a {@link GameSnapshot} of a session every few ticks for {@link KeyframeIndex}.
+ */
+public class KeyframeRecorder {
+    public static final int MAGIC = 0x56434B46;
+    public static final int VERSION = 1;
+    public static final int DEFAULT_INTERVAL = 1000;
+    private final GameSnapshot snapshot;
+    private final ByteArray data;
+    private final IntArray ticks;
+    private final IntArray offsets;
+    private int interval;
+    private boolean recording;
+
+    public KeyframeRecorder() {
+        snapshot = new GameSnapshot();
+        data = new ByteArray(64 * 1024);
+        ticks = new IntArray();
+        offsets = new IntArray();
+    }
+    
+    /**
+     * @param interval ticks between keyframes.
+     */
+    public void begin(int interval) {
+        this.interval = interval;
+        data.clear();
+        ticks.clear();
+        offsets.clear();
+        recording = true;
+    }
+    
+    /**
+     * Captures a keyframe if the world is on a multiple of the interval. Call
+     * once right after {@link GameWorld#start()} to capture tick 0, after that
+     * {@link GameWorld} calls it after every tick.
+     */
+    public void record(GameWorld world) {
+        if (!recording || world.getTick() % interval != 0) {
+            return;
+        }
+        
+        ByteBuffer buffer = snapshot.capture(world);
+        int length = buffer.remaining();
+        byte[] items = data.ensureCapacity(length);
+        buffer.get(items, data.size, length);
+        ticks.add((int) world.getTick());
+        offsets.add(data.size);
+        data.size += length;
+    }
+    
+    public void end() {
+        recording = false;
+    }
+    
+    public void save(FileHandle file) {
+        ByteArray header = new ByteArray(16 + ticks.size * 8);
+        VarInt.writeFixedInt(header, MAGIC);
+        VarInt.writeFixedInt(header, VERSION);
+        VarInt.write(header, interval);
+        VarInt.write(header, ticks.size);
+        for (int i = 0; i < ticks.size; i++) {
+            VarInt.write(header, ticks.get(i));
+            VarInt.write(header, offsets.get(i));
+            VarInt.write(header, (i + 1 < ticks.size ? offsets.get(i + 1) : data.size) - offsets.get(i));
+        }
+        
+        file.writeBytes(header.items, 0, header.size, false);
+        file.writeBytes(data.items, 0, data.size, true);
+    }
+
+    public boolean isRecording() {
+        return recording;
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    public int getKeyframeCount() {
+        return ticks.size;
+    }
+    
+    public int getSize() {
+        return data.size;
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.vegetablecommand;
+
+/**
+ * Structure of arrays backing every entity's position, speed, gravity and collision box.
+ */
+public class KinematicStore {
+    private static final int INITIAL_CAPACITY = 64;
+    private int size;
+    private Entity[] owners;
+    float[] x;
+    float[] y;
+    float[] xSpeed;
+    float[] ySpeed;
+    float[] gravityX;
+    float[] gravityY;
+    float[] boxOffsetX;
+    float[] boxOffsetY;
+    float[] boxX;
+    float[] boxY;
+    float[] boxWidth;
+    float[] boxHeight;
+
+    public KinematicStore() {
+        size = 0;
+        owners = new Entity[INITIAL_CAPACITY];
+        x = new float[INITIAL_CAPACITY];
+        y = new float[INITIAL_CAPACITY];
+        xSpeed = new float[INITIAL_CAPACITY];
+        ySpeed = new float[INITIAL_CAPACITY];
+        gravityX = new float[INITIAL_CAPACITY];
+        gravityY = new float[INITIAL_CAPACITY];
+        boxOffsetX = new float[INITIAL_CAPACITY];
+        boxOffsetY = new float[INITIAL_CAPACITY];
+        boxX = new float[INITIAL_CAPACITY];
+        boxY = new float[INITIAL_CAPACITY];
+        boxWidth = new float[INITIAL_CAPACITY];
+        boxHeight = new float[INITIAL_CAPACITY];
+    }
+    
+    /**
+     * Claims a zeroed slot for the entity and returns its index.
+     */
+    int allocate(Entity owner) {
+        if (size == owners.length) {
+            resize(Math.max(INITIAL_CAPACITY, (int) (size * 1.75f)));
+        }
+        
+        int slot = size++;
+        owners[slot] = owner;
+        x[slot] = 0.0f;
+        y[slot] = 0.0f;
+        xSpeed[slot] = 0.0f;
+        ySpeed[slot] = 0.0f;
+        gravityX[slot] = 0.0f;
+        gravityY[slot] = 0.0f;
+        boxOffsetX[slot] = 0.0f;
+        boxOffsetY[slot] = 0.0f;
+        boxX[slot] = 0.0f;
+        boxY[slot] = 0.0f;
+        boxWidth[slot] = 0.0f;
+        boxHeight[slot] = 0.0f;
+        return slot;
+    }
+    
+    /**
+     * Releases the slot by moving the last slot into it.
+     */
+    void free(int slot) {
+        int last = --size;
+        if (slot != last) {
+            Entity moved = owners[last];
+            owners[slot] = moved;
+            moved.slot = slot;
+            x[slot] = x[last];
+            y[slot] = y[last];
+            xSpeed[slot] = xSpeed[last];
+            ySpeed[slot] = ySpeed[last];
+            gravityX[slot] = gravityX[last];
+            gravityY[slot] = gravityY[last];
+            boxOffsetX[slot] = boxOffsetX[last];
+            boxOffsetY[slot] = boxOffsetY[last];
+            boxX[slot] = boxX[last];
+            boxY[slot] = boxY[last];
+            boxWidth[slot] = boxWidth[last];
+            boxHeight[slot] = boxHeight[last];
+        }
+        owners[last] = null;
+    }
+    
+    public void integrate(float delta) {
+        final int size = this.size;
+        final float[] x = this.x;
+        final float[] y = this.y;
+        final float[] xSpeed = this.xSpeed;
+        final float[] ySpeed = this.ySpeed;
+        final float[] gravityX = this.gravityX;
+        final float[] gravityY = this.gravityY;
+        final float[] boxOffsetX = this.boxOffsetX;
+        final float[] boxOffsetY = this.boxOffsetY;
+        final float[] boxX = this.boxX;
+        final float[] boxY = this.boxY;
+        
+        for (int i = 0; i < size; i++) {
+            xSpeed[i] += gravityX[i] * delta;
+            ySpeed[i] += gravityY[i] * delta;
+        }
+        
+        for (int i = 0; i < size; i++) {
+            x[i] += xSpeed[i] * delta;
+            y[i] += ySpeed[i] * delta;
+        }
+        
+        for (int i = 0; i < size; i++) {
+            boxX[i] = x[i] + boxOffsetX[i];
+            boxY[i] = y[i] + boxOffsetY[i];
+        }
+    }
+    
+    private void resize(int capacity) {
+        Entity[] newOwners = new Entity[capacity];
+        System.arraycopy(owners, 0, newOwners, 0, size);
+        owners = newOwners;
+        x = resize(x, capacity);
+        y = resize(y, capacity);
+        xSpeed = resize(xSpeed, capacity);
+        ySpeed = resize(ySpeed, capacity);
+        gravityX = resize(gravityX, capacity);
+        gravityY = resize(gravityY, capacity);
+        boxOffsetX = resize(boxOffsetX, capacity);
+        boxOffsetY = resize(boxOffsetY, capacity);
+        boxX = resize(boxX, capacity);
+        boxY = resize(boxY, capacity);
+        boxWidth = resize(boxWidth, capacity);
+        boxHeight = resize(boxHeight, capacity);
+    }
+    
+    private float[] resize(float[] column, int capacity) {
+        float[] newColumn = new float[capacity];
+        System.arraycopy(column, 0, newColumn, 0, size);
+        return newColumn;
+    }
+    
+    public int getSize() {
+        return size;
+    }
+    
+    public int getCapacity() {
+        return owners.length;
+    }
+}
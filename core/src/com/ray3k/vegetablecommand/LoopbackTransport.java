@@ -0,0 +1,68 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ray3k.vegetablecommand;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * In memory {@link Transport} for running a server and its clients in one process.
+ */
+public class LoopbackTransport implements Transport {
+    private final ConcurrentLinkedQueue<byte[]> inbox;
+    private LoopbackTransport peer;
+    private long bytesSent;
+
+    public LoopbackTransport() {
+        inbox = new ConcurrentLinkedQueue<byte[]>();
+    }
+    
+    public void connect(LoopbackTransport peer) {
+        this.peer = peer;
+        peer.peer = this;
+    }
+
+    @Override
+    public void send(byte[] bytes, int offset, int length) {
+        byte[] message = new byte[length];
+        System.arraycopy(bytes, offset, message, 0, length);
+        peer.inbox.add(message);
+        bytesSent += length;
+    }
+
+    @Override
+    public ByteBuffer receive() {
+        byte[] message = inbox.poll();
+        return message == null ? null : ByteBuffer.wrap(message);
+    }
+
+    @Override
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    public LoopbackTransport getPeer() {
+        return peer;
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.vegetablecommand;
+
+import com.badlogic.ashley.utils.ImmutableArray;
+import com.badlogic.gdx.utils.Array;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Advances the pose of every live skeleton entity across a {@link ForkJoinPool}.
+ */
+public class PoseUpdater {
+    public static final int DEFAULT_CHUNK_SIZE = 32;
+    private static ForkJoinPool sharedPool;
+    private final ForkJoinPool pool;
+    private int chunkSize;
+    private final Array<PoseChunk> chunks;
+    private final PoseBatch batch;
+    private ImmutableArray<SkeletonEntity> entities;
+    private float delta;
+
+    public PoseUpdater() {
+        this(getSharedPool(), DEFAULT_CHUNK_SIZE);
+    }
+    
+    public PoseUpdater(ForkJoinPool pool, int chunkSize) {
+        this.pool = pool;
+        chunks = new Array<PoseChunk>();
+        batch = new PoseBatch();
+        setChunkSize(chunkSize);
+    }
+    
+    public static synchronized ForkJoinPool getSharedPool() {
+        if (sharedPool == null) {
+            sharedPool = new ForkJoinPool();
+        }
+        return sharedPool;
+    }
+    
+    public void update(ImmutableArray<SkeletonEntity> entities, float delta) {
+        int size = entities.size();
+        if (pool == null || pool.getParallelism() <= 1 || size <= chunkSize) {
+            updateRange(entities, 0, size, delta);
+        } else {
+            this.entities = entities;
+            this.delta = delta;
+            int chunkCount = (size + chunkSize - 1) / chunkSize;
+            while (chunks.size < chunkCount) {
+                chunks.add(new PoseChunk());
+            }
+            for (int i = 0; i < chunkCount; i++) {
+                PoseChunk chunk = chunks.get(i);
+                chunk.reinitialize();
+                chunk.start = i * chunkSize;
+                chunk.end = Math.min(size, chunk.start + chunkSize);
+            }
+            batch.chunkCount = chunkCount;
+            batch.reinitialize();
+            pool.invoke(batch);
+            this.entities = null;
+        }
+    }
+    
+    private static void updateRange(ImmutableArray<SkeletonEntity> entities, int start, int end, float delta) {
+        for (int i = start; i < end; i++) {
+            SkeletonEntity entity = entities.get(i);
+            if (!entity.isDestroyed()) {
+                entity.advancePose(delta);
+            }
+        }
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be at least 1: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+    }
+    
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+    
+    private class PoseBatch extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private int chunkCount;
+        
+        @Override
+        protected void compute() {
+            for (int i = 1; i < chunkCount; i++) {
+                chunks.get(i).fork();
+            }
+            chunks.get(0).compute();
+            for (int i = 1; i < chunkCount; i++) {
+                chunks.get(i).join();
+            }
+        }
+    }
+    
+    private class PoseChunk extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private int start;
+        private int end;
+        
+        @Override
+        protected void compute() {
+            updateRange(entities, start, end, delta);
+        }
+    }
+}
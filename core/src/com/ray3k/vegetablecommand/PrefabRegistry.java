@@ -0,0 +1,163 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ray3k.vegetablecommand;
+
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.math.Circle;
+import com.esotericsoftware.spine.SkeletonData;
+import com.esotericsoftware.spine.SlotData;
+import com.esotericsoftware.spine.attachments.BoundingBoxAttachment;
+import com.esotericsoftware.spine.attachments.PointAttachment;
+
+/**
+ * Skeleton archetypes of every entity and the bones and attachments they drive, built once.
+ */
+public class PrefabRegistry {
+    private final SkeletonPrefab city;
+    private final SkeletonPrefab turret;
+    private final SkeletonPrefab missile;
+    private final SkeletonPrefab plane;
+    private final SkeletonPrefab explosion;
+    private final int turretBone;
+    private final PointAttachment muzzle;
+    private final int lineBone;
+    private final BakedCurve explosionCurve;
+    private final Circle explosionCircle;
+    private final float explosionKillTime;
+
+    public PrefabRegistry(AssetManager assetManager) {
+        city = create(assetManager, "city", .25f, true);
+        turret = create(assetManager, "base", .25f, true);
+        missile = create(assetManager, "line", .25f, false);
+        plane = create(assetManager, "plane", .25f, false);
+        explosion = create(assetManager, "explosion", 0.0f, false);
+        
+        turretBone = turret.findBoneIndex("turret");
+        muzzle = (PointAttachment) turret.findAttachment("muzzle", "muzzle");
+        lineBone = missile.findBoneIndex("line");
+        
+        explosionKillTime = explosion.findEventTime("kill");
+        int explosionBone = explosion.findBoneIndex("bone");
+        explosionCircle = createCircle(explosion, "bbox", "bbox", explosionBone);
+        explosionCurve = explosionCircle == null ? null : BakedCurve.bake(explosion, explosionBone, BakedCurve.DEFAULT_SAMPLE_RATE);
+    }
+    
+    /**
+     * Fits a circle to an unweighted bounding box attached to the given bone:
+     * centered on the vertices' centroid, with the farthest vertex on its
+     * edge so it covers the whole box. Returns null for weighted boxes and for
+     * boxes on any other bone, whose vertices are not in the bone's space.
+     */
+    private static Circle createCircle(SkeletonPrefab prefab, String slotName, String attachmentName, int boneIndex) {
+        SlotData slot = prefab.getSkeletonData().getSlots().get(prefab.findSlotIndex(slotName));
+        BoundingBoxAttachment box = (BoundingBoxAttachment) prefab.findAttachment(slotName, attachmentName);
+        if (slot.getBoneData().getIndex() != boneIndex || box.getBones() != null) {
+            return null;
+        }
+        
+        float[] vertices = box.getVertices();
+        int count = vertices.length / 2;
+        float x = 0.0f;
+        float y = 0.0f;
+        for (int i = 0; i < vertices.length; i += 2) {
+            x += vertices[i];
+            y += vertices[i + 1];
+        }
+        x /= count;
+        y /= count;
+        
+        float radius = 0.0f;
+        for (int i = 0; i < vertices.length; i += 2) {
+            radius = Math.max(radius, (float) Math.hypot(vertices[i] - x, vertices[i + 1] - y));
+        }
+        return new Circle(x, y, radius);
+    }
+    
+    private static SkeletonPrefab create(AssetManager assetManager, String name, float defaultMix, boolean instanced) {
+        SkeletonData skeletonData = assetManager.get(Core.DATA_PATH + "/spine/" + name + ".json", SkeletonData.class);
+        return new SkeletonPrefab(skeletonData, defaultMix, instanced);
+    }
+
+    public SkeletonPrefab getCity() {
+        return city;
+    }
+
+    public SkeletonPrefab getTurret() {
+        return turret;
+    }
+
+    public SkeletonPrefab getMissile() {
+        return missile;
+    }
+
+    public SkeletonPrefab getPlane() {
+        return plane;
+    }
+
+    public SkeletonPrefab getExplosion() {
+        return explosion;
+    }
+
+    /**
+     * Index of the turret skeleton's barrel bone.
+     */
+    public int getTurretBone() {
+        return turretBone;
+    }
+
+    /**
+     * Point on the barrel missiles are fired from.
+     */
+    public PointAttachment getMuzzle() {
+        return muzzle;
+    }
+
+    /**
+     * Index of the missile skeleton's trail bone.
+     */
+    public int getLineBone() {
+        return lineBone;
+    }
+
+    /**
+     * Baked growth of the explosion, or null if it must be played by Spine.
+     */
+    public BakedCurve getExplosionCurve() {
+        return explosionCurve;
+    }
+
+    /**
+     * Hit circle of the explosion at full size, relative to its scaled bone.
+     */
+    public Circle getExplosionCircle() {
+        return explosionCircle;
+    }
+
+    /**
+     * Time of the explosion's kill event, when it stops hitting and vanishes.
+     */
+    public float getExplosionKillTime() {
+        return explosionKillTime;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.vegetablecommand;
+
+import com.badlogic.gdx.math.RandomXS128;
+import com.badlogic.gdx.utils.Array;
+import java.nio.ByteBuffer;
+
+/**
+ * Per session gameplay randomness, one {@link RandomXS128} stream per subsystem.
+ */
+public class RandomService {
+    public static enum Stream {
+        SPAWN, TARGETING, COSMETIC
+    }
+    
+    private static final long STREAM_SALT = 0x9E3779B97F4A7C15L;
+    private final RandomXS128[] streams;
+    private long seed;
+
+    public RandomService(long seed) {
+        streams = new RandomXS128[Stream.values().length];
+        for (int i = 0; i < streams.length; i++) {
+            streams[i] = new RandomXS128();
+        }
+        setSeed(seed);
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+        for (int i = 0; i < streams.length; i++) {
+            streams[i].setSeed(seed ^ STREAM_SALT * (i + 1));
+        }
+    }
+    
+    /**
+     * Writes the current state of every stream, so a restored service
+     * continues each sequence where this one is.
+     */
+    public void writeState(ByteBuffer buffer) {
+        buffer.putLong(seed);
+        for (int i = 0; i < streams.length; i++) {
+            buffer.putLong(streams[i].getState(0));
+            buffer.putLong(streams[i].getState(1));
+        }
+    }
+    
+    public void readState(ByteBuffer buffer) {
+        seed = buffer.getLong();
+        for (int i = 0; i < streams.length; i++) {
+            streams[i].setState(buffer.getLong(), buffer.getLong());
+        }
+    }
+    
+    public RandomXS128 get(Stream stream) {
+        return streams[stream.ordinal()];
+    }
+    
+    /**
+     * @return a random number between 0 (inclusive) and range (exclusive).
+     */
+    public float random(Stream stream, float range) {
+        return get(stream).nextFloat() * range;
+    }
+    
+    /**
+     * @return a random number between 0 (inclusive) and range (inclusive).
+     */
+    public int random(Stream stream, int range) {
+        return get(stream).nextInt(range + 1);
+    }
+    
+    /**
+     * @return a random item of the array or null if it is empty.
+     */
+    public <T> T random(Stream stream, Array<T> array) {
+        if (array.size == 0) {
+            return null;
+        }
+        return array.get(get(stream).nextInt(array.size));
+    }
+}
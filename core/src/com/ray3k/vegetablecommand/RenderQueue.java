@@ -0,0 +1,104 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.vegetablecommand;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.IntMap;
+
+/**
+ * Entities bucketed by depth, highest depth first, in spawn order within a depth.
+ */
+public class RenderQueue {
+    private final IntMap<Array<Entity>> buckets;
+    private final IntArray depths;
+    private final IntArray dirtyDepths;
+
+    public RenderQueue() {
+        buckets = new IntMap<Array<Entity>>();
+        depths = new IntArray();
+        dirtyDepths = new IntArray();
+    }
+    
+    public void add(Entity entity) {
+        getBucket(entity.getDepth()).add(entity);
+    }
+    
+    /**
+     * Marks the entity's bucket for compaction. Destroyed entities are only
+     * dropped in {@link #compact()}, in one pass per bucket.
+     */
+    public void remove(Entity entity) {
+        int depth = entity.getDepth();
+        if (!dirtyDepths.contains(depth)) {
+            dirtyDepths.add(depth);
+        }
+    }
+    
+    public void move(Entity entity, int oldDepth) {
+        Array<Entity> bucket = buckets.get(oldDepth);
+        if (bucket != null && bucket.removeValue(entity, true)) {
+            add(entity);
+        }
+    }
+    
+    public void compact() {
+        for (int i = 0; i < dirtyDepths.size; i++) {
+            Array<Entity> bucket = buckets.get(dirtyDepths.get(i));
+            int live = 0;
+            for (int j = 0; j < bucket.size; j++) {
+                Entity entity = bucket.get(j);
+                if (!entity.isDestroyed()) {
+                    bucket.set(live++, entity);
+                }
+            }
+            bucket.truncate(live);
+        }
+        dirtyDepths.clear();
+    }
+    
+    public int getDepthCount() {
+        return depths.size;
+    }
+    
+    public int getDepth(int index) {
+        return depths.get(index);
+    }
+    
+    public Array<Entity> getBucket(int depth) {
+        Array<Entity> bucket = buckets.get(depth);
+        if (bucket == null) {
+            bucket = new Array<Entity>();
+            buckets.put(depth, bucket);
+            
+            int index = 0;
+            while (index < depths.size && depths.get(index) > depth) {
+                index++;
+            }
+            depths.insert(index, depth);
+        }
+        return bucket;
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.vegetablecommand;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import java.nio.ByteBuffer;
+
+/**
+ * {@link InputSource} that plays back a log written by {@link InputRecorder}.
+ */
+public class ReplayInputSource implements InputSource {
+    private final ByteBuffer buffer;
+    private final int eventsStart;
+    private final long seed;
+    private final int tickRate;
+    private final int worldWidth;
+    private final int worldHeight;
+    private final TickInput current;
+    private final TickInput skipped;
+    private int tick;
+    private int nextChange;
+    private boolean finished;
+
+    public ReplayInputSource(byte[] bytes) {
+        buffer = ByteBuffer.wrap(bytes);
+        if (buffer.getInt() != InputRecorder.MAGIC) {
+            throw new GdxRuntimeException("Not an input log.");
+        }
+        int version = buffer.getInt();
+        if (version != InputRecorder.VERSION) {
+            throw new GdxRuntimeException("Unsupported input log version: " + version);
+        }
+        seed = buffer.getLong();
+        tickRate = VarInt.read(buffer);
+        worldWidth = VarInt.read(buffer);
+        worldHeight = VarInt.read(buffer);
+        eventsStart = buffer.position();
+        current = new TickInput();
+        skipped = new TickInput();
+        rewind();
+    }
+    
+    public static ReplayInputSource load(FileHandle file) {
+        return new ReplayInputSource(file.readBytes());
+    }
+    
+    public void rewind() {
+        buffer.position(eventsStart);
+        current.clear();
+        tick = 0;
+        finished = false;
+        nextChange = VarInt.read(buffer);
+        checkEnd();
+    }
+
+    /**
+     * Positions the replay so the next {@link #poll(TickInput)} returns the
+     * input of the given tick. Only the log is scanned, nothing is simulated.
+     */
+    public void seek(int tick) {
+        if (tick < this.tick) {
+            rewind();
+        }
+        while (this.tick < tick) {
+            poll(skipped);
+        }
+    }
+
+    /**
+     * Returns the input of the next tick. After the last recorded tick the
+     * replay is finished, and any further polls hold the pointer with the
+     * trigger released.
+     */
+    @Override
+    public void poll(TickInput input) {
+        while (!finished && tick == nextChange) {
+            int flags = buffer.get();
+            current.setFiring((flags & InputRecorder.FLAG_FIRING) != 0);
+            if ((flags & InputRecorder.FLAG_X) != 0) {
+                current.setPointerX(current.getPointerX() + VarInt.readSigned(buffer));
+            }
+            if ((flags & InputRecorder.FLAG_Y) != 0) {
+                current.setPointerY(current.getPointerY() + VarInt.readSigned(buffer));
+            }
+            nextChange += VarInt.read(buffer);
+        }
+        
+        input.set(current);
+        tick++;
+        checkEnd();
+    }
+    
+    /**
+     * Finishes the replay as soon as the end marker is the next change, so
+     * the tick after the last recorded one is never simulated.
+     */
+    private void checkEnd() {
+        if (tick == nextChange && (buffer.get(buffer.position()) & InputRecorder.FLAG_END) != 0) {
+            finished = true;
+            current.setFiring(false);
+        }
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public int getTick() {
+        return tick;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getTickRate() {
+        return tickRate;
+    }
+
+    public int getWorldWidth() {
+        return worldWidth;
+    }
+
+    public int getWorldHeight() {
+        return worldHeight;
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.vegetablecommand;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.esotericsoftware.spine.Animation;
+import com.esotericsoftware.spine.Animation.DeformTimeline;
+import com.esotericsoftware.spine.Animation.DrawOrderTimeline;
+import com.esotericsoftware.spine.Animation.Timeline;
+import com.esotericsoftware.spine.AnimationState;
+import com.esotericsoftware.spine.AnimationState.TrackEntry;
+import com.esotericsoftware.spine.Bone;
+import com.esotericsoftware.spine.Skeleton;
+import com.esotericsoftware.spine.Slot;
+
+/**
+ * Looping pose of an instanced prefab, advanced once per tick and copied by its instances.
+ */
+public class SharedPose {
+    /**
+     * Largest difference in animation time, in seconds, at which an instance
+     * still copies this pose.
+     */
+    public static final float PHASE_TOLERANCE = 0.001f;
+    private final SkeletonPrefab prefab;
+    private final Skeleton skeleton;
+    private final AnimationState animationState;
+    private final TrackEntry entry;
+
+    public SharedPose(SkeletonPrefab prefab) {
+        this.prefab = prefab;
+        skeleton = new Skeleton(prefab.getSkeletonData());
+        animationState = new AnimationState(prefab.getAnimationStateData());
+        entry = animationState.setAnimation(0, prefab.getAnimation(), true);
+        apply();
+    }
+    
+    /**
+     * Throws if the animation keys deform or draw order, which instances do
+     * not copy.
+     */
+    public static void validate(Animation animation) {
+        Array<Timeline> timelines = animation.getTimelines();
+        for (int i = 0; i < timelines.size; i++) {
+            Timeline timeline = timelines.get(i);
+            if (timeline instanceof DeformTimeline || timeline instanceof DrawOrderTimeline) {
+                throw new GdxRuntimeException("Animation cannot be instanced, it keys deform or draw order: " + animation.getName());
+            }
+        }
+    }
+    
+    /**
+     * Called by {@link EntityManager} before the pose phase, never while
+     * instances are copying.
+     */
+    public void advance(float delta) {
+        setTime(entry.getTrackTime() + delta);
+    }
+    
+    public float getTime() {
+        return entry.getTrackTime();
+    }
+    
+    /**
+     * Whether the entry loops this animation within {@link #PHASE_TOLERANCE}
+     * of this pose, so copying the pose looks the same as applying it.
+     */
+    public boolean isInPhase(TrackEntry other) {
+        if (other == null || !other.getLoop() || other.getAnimation() != prefab.getAnimation() || other.getMixingFrom() != null) {
+            return false;
+        }
+        float difference = Math.abs(other.getAnimationTime() - entry.getAnimationTime());
+        return Math.min(difference, prefab.getAnimation().getDuration() - difference) <= PHASE_TOLERANCE;
+    }
+    
+    /**
+     * Jumps to the given time. Only call between ticks.
+     */
+    public void setTime(float time) {
+        if (time != entry.getTrackTime()) {
+            entry.setTrackTime(time);
+            apply();
+        }
+    }
+    
+    private void apply() {
+        animationState.apply(skeleton);
+        skeleton.updateWorldTransform();
+    }
+    
+    /**
+     * Copies the pose into the target, translated to the target's position.
+     * Only reads this pose, so instances may copy from several threads.
+     */
+    public void pose(Skeleton target) {
+        float x = target.getX();
+        float y = target.getY();
+        Array<Bone> bones = skeleton.getBones();
+        Array<Bone> targetBones = target.getBones();
+        for (int i = 0; i < bones.size; i++) {
+            Bone bone = bones.get(i);
+            Bone targetBone = targetBones.get(i);
+            targetBone.setA(bone.getA());
+            targetBone.setB(bone.getB());
+            targetBone.setC(bone.getC());
+            targetBone.setD(bone.getD());
+            targetBone.setWorldX(bone.getWorldX() + x);
+            targetBone.setWorldY(bone.getWorldY() + y);
+        }
+        
+        Array<Slot> slots = skeleton.getSlots();
+        Array<Slot> targetSlots = target.getSlots();
+        for (int i = 0; i < slots.size; i++) {
+            Slot slot = slots.get(i);
+            Slot targetSlot = targetSlots.get(i);
+            targetSlot.getColor().set(slot.getColor());
+            if (targetSlot.getAttachment() != slot.getAttachment()) {
+                targetSlot.setAttachment(slot.getAttachment());
+            }
+        }
+    }
+
+    public SkeletonPrefab getPrefab() {
+        return prefab;
+    }
+
+    public Animation getAnimation() {
+        return prefab.getAnimation();
+    }
+}
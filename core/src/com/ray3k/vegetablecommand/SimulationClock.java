@@ -0,0 +1,240 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.vegetablecommand;
+
+/**
+ * Fixed timestep clock with time scale and turbo modes.
+ */
+public class SimulationClock {
+    public static final int DEFAULT_TICK_RATE = 100;
+    public static final int DEFAULT_MAX_SUBSTEPS = 5;
+    public static final float DEFAULT_TURBO_BUDGET = .014f;
+    public static final float MIN_TIME_SCALE = 1.0f / 16.0f;
+    public static final float MAX_TIME_SCALE = 64.0f;
+    private static final long NANOS_PER_SECOND = 1000000000L;
+    private int tickRate;
+    private long tickNanos;
+    private float tickDelta;
+    private int maxSubsteps;
+    private long previous;
+    private long lag;
+    private long ticks;
+    private long droppedNanos;
+    private int substeps;
+    private float timeScale;
+    private boolean turbo;
+    private long turboBudgetNanos;
+    private long turboDeadline;
+    private long rateStart;
+    private long rateTicks;
+    private float ticksPerSecond;
+
+    public SimulationClock() {
+        this(DEFAULT_TICK_RATE, DEFAULT_MAX_SUBSTEPS);
+    }
+    
+    public SimulationClock(int tickRate, int maxSubsteps) {
+        setTickRate(tickRate);
+        setMaxSubsteps(maxSubsteps);
+        timeScale = 1.0f;
+        setTurboBudget(DEFAULT_TURBO_BUDGET);
+        reset();
+    }
+    
+    public void reset() {
+        previous = System.nanoTime();
+        lag = 0;
+        substeps = 0;
+        rateStart = previous;
+        rateTicks = ticks;
+    }
+    
+    /**
+     * Accumulates the wall time since the previous call and returns the
+     * number of ticks of {@link #getTickDelta()} seconds to simulate now.
+     */
+    public int advance() {
+        long current = System.nanoTime();
+        long elapsed = current - previous;
+        previous = current;
+        if (elapsed > 0) {
+            lag += timeScale == 1.0f ? elapsed : (long) (elapsed * (double) timeScale);
+        }
+        
+        long due = lag / tickNanos;
+        substeps = (int) Math.min(due, getScaledMaxSubsteps());
+        lag -= substeps * tickNanos;
+        
+        if (lag >= tickNanos) {
+            long excess = lag - lag % tickNanos;
+            droppedNanos += excess;
+            lag -= excess;
+        }
+        
+        ticks += substeps;
+        updateRate(current);
+        return substeps;
+    }
+    
+    /**
+     * Starts a turbo frame. Call {@link #turboTick()} before each tick until it
+     * returns false; at least one tick always runs.
+     */
+    public void beginTurbo() {
+        turboDeadline = System.nanoTime() + turboBudgetNanos;
+        substeps = 0;
+    }
+    
+    /**
+     * @return true if another tick fits in the current turbo frame, in which
+     * case it is counted.
+     */
+    public boolean turboTick() {
+        if (substeps > 0) {
+            long current = System.nanoTime();
+            if (current >= turboDeadline) {
+                previous = current;
+                lag = 0;
+                updateRate(current);
+                return false;
+            }
+        }
+        
+        substeps++;
+        ticks++;
+        return true;
+    }
+    
+    private void updateRate(long current) {
+        long window = current - rateStart;
+        if (window >= NANOS_PER_SECOND) {
+            ticksPerSecond = (ticks - rateTicks) * (float) NANOS_PER_SECOND / window;
+            rateStart = current;
+            rateTicks = ticks;
+        }
+    }
+    
+    private int getScaledMaxSubsteps() {
+        return timeScale <= 1.0f ? maxSubsteps : (int) Math.ceil(maxSubsteps * timeScale);
+    }
+    
+    /**
+     * Fraction of a tick, from 0 up to but excluding 1, that has elapsed since
+     * the last simulated tick.
+     */
+    public float getAlpha() {
+        return lag / (float) tickNanos;
+    }
+
+    public int getTickRate() {
+        return tickRate;
+    }
+
+    public void setTickRate(int tickRate) {
+        if (tickRate <= 0) {
+            throw new IllegalArgumentException("Tick rate must be positive: " + tickRate);
+        }
+        this.tickRate = tickRate;
+        tickNanos = NANOS_PER_SECOND / tickRate;
+        tickDelta = 1.0f / tickRate;
+    }
+    
+    public float getTickDelta() {
+        return tickDelta;
+    }
+
+    public int getMaxSubsteps() {
+        return maxSubsteps;
+    }
+
+    public void setMaxSubsteps(int maxSubsteps) {
+        if (maxSubsteps < 1) {
+            throw new IllegalArgumentException("Max substeps must be at least 1: " + maxSubsteps);
+        }
+        this.maxSubsteps = maxSubsteps;
+    }
+    
+    public int getSubsteps() {
+        return substeps;
+    }
+    
+    public long getTicks() {
+        return ticks;
+    }
+    
+    /**
+     * Ticks actually simulated per second of wall time, measured over the
+     * last full second.
+     */
+    public float getTicksPerSecond() {
+        return ticksPerSecond;
+    }
+
+    public float getTimeScale() {
+        return timeScale;
+    }
+
+    /**
+     * Game seconds per wall second, clamped to {@link #MIN_TIME_SCALE} and
+     * {@link #MAX_TIME_SCALE}.
+     */
+    public void setTimeScale(float timeScale) {
+        this.timeScale = Math.max(MIN_TIME_SCALE, Math.min(MAX_TIME_SCALE, timeScale));
+    }
+
+    public boolean isTurbo() {
+        return turbo;
+    }
+
+    /**
+     * Simulates as fast as possible, drawing once per turbo budget. Leaving
+     * turbo resumes from the current wall time.
+     */
+    public void setTurbo(boolean turbo) {
+        if (this.turbo && !turbo) {
+            previous = System.nanoTime();
+            lag = 0;
+        }
+        this.turbo = turbo;
+    }
+
+    public float getTurboBudget() {
+        return turboBudgetNanos / (float) NANOS_PER_SECOND;
+    }
+
+    /**
+     * Wall time, in seconds, spent simulating per frame in turbo.
+     */
+    public void setTurboBudget(float turboBudget) {
+        turboBudgetNanos = (long) (turboBudget * NANOS_PER_SECOND);
+    }
+    
+    /**
+     * Total wall time, in seconds, skipped because the substep cap was hit.
+     */
+    public float getDroppedTime() {
+        return droppedNanos / (float) NANOS_PER_SECOND;
+    }
+}
@@ -36,6 +36,8 @@ import com.badlogic.gdx.utils.Array;
 import com.esotericsoftware.spine.SkeletonBinary;
 import com.esotericsoftware.spine.SkeletonData;
 import com.esotericsoftware.spine.SkeletonJson;
+import com.esotericsoftware.spine.attachments.AtlasAttachmentLoader;
+import com.esotericsoftware.spine.attachments.AttachmentLoader;
 
 /** {@link AssetLoader} for {@link SkeletonData} instances. 
  * Loads an exported Spine's skeleton data.
@@ -65,15 +67,20 @@ public class SkeletonDataLoader extends AsynchronousAssetLoader<SkeletonData, Sk
 	@Override
 	public void loadAsync( AssetManager manager, String fileName, FileHandle file, SkeletonDataLoaderParameter parameter) {
 		skeletonData = null;
-		TextureAtlas atlas = manager.get(parameter.atlasName, TextureAtlas.class);
+		AttachmentLoader attachmentLoader;
+		if (parameter.atlasName == null) {
+			attachmentLoader = new BoundsAttachmentLoader();
+		} else {
+			attachmentLoader = new AtlasAttachmentLoader(manager.get(parameter.atlasName, TextureAtlas.class));
+		}
 		
 		String extension = file.extension();
 		if (extension.toLowerCase().equals("skel")) {
-			SkeletonBinary skeletonBinary = new SkeletonBinary(atlas);
+			SkeletonBinary skeletonBinary = new SkeletonBinary(attachmentLoader);
 			skeletonBinary.setScale(parameter.scale);
 			skeletonData = skeletonBinary.readSkeletonData(file);
 		} else {
-			SkeletonJson skeletonJson = new SkeletonJson(atlas);
+			SkeletonJson skeletonJson = new SkeletonJson(attachmentLoader);
 			skeletonJson.setScale(parameter.scale);
 			skeletonData = skeletonJson.readSkeletonData(file);			
 		}
@@ -88,6 +95,9 @@ public class SkeletonDataLoader extends AsynchronousAssetLoader<SkeletonData, Sk
 	@Override
 	public Array<AssetDescriptor> getDependencies( String fileName, FileHandle file, SkeletonDataLoaderParameter parameter) {
 		Array<AssetDescriptor> deps = new Array<AssetDescriptor>();
+		if (parameter.atlasName == null) {
+			return deps;
+		}
 		deps.add(new AssetDescriptor(parameter.atlasName, TextureAtlas.class));
 		return deps;
 	}
@@ -97,7 +107,7 @@ public class SkeletonDataLoader extends AsynchronousAssetLoader<SkeletonData, Sk
 	 * This will insure the skeleton data is loaded correctly
      * @author mzechner */
     static public class SkeletonDataLoaderParameter extends AssetLoaderParameters<SkeletonData> {
-    	// A SkeletonJson must be loaded from an atlas.
+    	// A SkeletonJson must be loaded from an atlas. A null atlas loads bounds only, see BoundsAttachmentLoader.
     	public String atlasName;
     	public float  scale;
     	
@@ -0,0 +1,315 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.vegetablecommand;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.utils.Array;
+import com.esotericsoftware.spine.Animation;
+import com.esotericsoftware.spine.AnimationState;
+import com.esotericsoftware.spine.AnimationState.TrackEntry;
+import com.esotericsoftware.spine.Bone;
+import com.esotericsoftware.spine.Skeleton;
+import com.esotericsoftware.spine.SkeletonBounds;
+import java.nio.ByteBuffer;
+
+/**
+ * Entity driven by a Spine skeleton, posed in a phase of its own before any entity acts.
+ */
+public abstract class SkeletonEntity extends Entity {
+    private Skeleton skeleton;
+    private AnimationState animationState;
+    private final SkeletonBounds skeletonBounds;
+    private boolean boundsDirty;
+    private SharedPose sharedPose;
+    private boolean[] overrideBones;
+    private PosePriority posePriority;
+    private int posePending;
+    private float poseDelta;
+    private boolean posed;
+
+    public SkeletonEntity(EntityManager manager, Core core) {
+        this(manager, core, true);
+    }
+    
+    protected SkeletonEntity(EntityManager manager, Core core, boolean spawn) {
+        super(manager, core, spawn);
+        skeletonBounds = new SkeletonBounds();
+        posePriority = PosePriority.HIGH;
+    }
+    
+    public static enum PosePriority {
+        /**
+         * Posed every tick. Anything whose bones or bounds gameplay reads.
+         */
+        HIGH(1),
+        /**
+         * Posed every fourth tick.
+         */
+        LOW(4);
+        
+        private final int interval;
+        
+        private PosePriority(int interval) {
+            this.interval = interval;
+        }
+
+        /**
+         * Number of ticks between poses.
+         */
+        public int getInterval() {
+            return interval;
+        }
+    }
+    
+    /**
+     * Also forgets the pose schedule of a pooled entity's previous life, so it
+     * is posed on its first tick and staggered by its new id.
+     */
+    @Override
+    public void spawn() {
+        posed = false;
+        posePending = 0;
+        poseDelta = 0.0f;
+        super.spawn();
+        if (posePriority != null) {
+            setPosePriority(posePriority);
+        }
+    }
+    
+    /**
+     * Creates this entity's skeleton and animation state. Only the pose is
+     * per entity; the data is shared with every entity of the prefab.
+     */
+    protected void createSkeleton(SkeletonPrefab prefab) {
+        skeleton = new Skeleton(prefab.getSkeletonData());
+        animationState = new AnimationState(prefab.getAnimationStateData());
+        sharedPose = prefab.isInstanced() ? getManager().getSharedPose(prefab) : null;
+        boundsDirty = true;
+    }
+    
+    /**
+     * Poses the bone and its children from their local transforms instead of
+     * copying them from the shared pose.
+     */
+    protected void addOverrideBone(int boneIndex) {
+        Array<Bone> bones = skeleton.getBones();
+        if (overrideBones == null) {
+            overrideBones = new boolean[bones.size];
+        }
+        overrideBones[boneIndex] = true;
+        for (int i = boneIndex + 1; i < bones.size; i++) {
+            Bone parent = bones.get(i).getParent();
+            if (parent != null && overrideBones[parent.getData().getIndex()]) {
+                overrideBones[i] = true;
+            }
+        }
+    }
+    
+    /**
+     * Called by {@link PoseUpdater} once per tick. Poses the skeleton if it is
+     * due according to its priority. Until then, the delta is accumulated.
+     * A skeleton that was never posed is posed at its current time right away,
+     * so it is never drawn or hit tested in its raw setup pose.
+     */
+    void advancePose(float delta) {
+        poseDelta += delta;
+        posePending++;
+        if (posePending < posePriority.getInterval()) {
+            if (!posed) {
+                updatePose(0.0f);
+            }
+        } else {
+            float accumulated = poseDelta;
+            poseDelta = 0.0f;
+            posePending = 0;
+            updatePose(accumulated);
+        }
+    }
+    
+    /**
+     * Poses the skeleton. An instance whose animation is in phase with its
+     * shared pose only advances its own time and copies the shared pose; the
+     * events it passes on the way are not fired.
+     */
+    public void updatePose(float delta) {
+        skeleton.setPosition(getX(), getY());
+        animationState.update(delta);
+        TrackEntry entry = animationState.getCurrent(0);
+        if (sharedPose != null && sharedPose.isInPhase(entry)) {
+            entry.setAnimationLast(entry.getAnimationTime());
+            sharedPose.pose(skeleton);
+            updateOverrideBones();
+        } else {
+            animationState.apply(skeleton);
+            skeleton.updateWorldTransform();
+        }
+        boundsDirty = true;
+        posed = true;
+    }
+    
+    private void updateOverrideBones() {
+        if (overrideBones == null) {
+            return;
+        }
+        Array<Bone> bones = skeleton.getBones();
+        for (int i = 0; i < bones.size; i++) {
+            if (overrideBones[i]) {
+                bones.get(i).updateWorldTransform();
+            }
+        }
+    }
+    
+    /**
+     * Marks the bounds stale after the world transform was changed outside of
+     * {@link #updatePose(float)}.
+     */
+    protected void invalidateBounds() {
+        boundsDirty = true;
+    }
+
+    /**
+     * Adds the skeleton color, the animation playing on track 0 and the local
+     * bone transforms set by {@link #act(float)}. The pose itself is not
+     * written; it is rebuilt in the pose phase of the next tick. The animation
+     * time of the last apply becomes the restored entry's last time, so events
+     * already fired are not fired again. The delta accumulated by a low
+     * priority skeleton is kept, so it is posed on the same tick after a
+     * restore. An instance in phase with its shared pose also writes the
+     * shared time, so the restored instances copy the same pose.
+     */
+    @Override
+    public void writeState(ByteBuffer buffer) {
+        super.writeState(buffer);
+        buffer.putInt(Color.rgba8888(skeleton.getColor()));
+        TrackEntry entry = animationState.getCurrent(0);
+        if (entry == null) {
+            buffer.putShort((short) -1);
+        } else {
+            buffer.putShort((short) skeleton.getData().getAnimations().indexOf(entry.getAnimation(), true));
+            buffer.put((byte) (entry.getLoop() ? 1 : 0));
+            buffer.putFloat(entry.getTrackTime());
+            buffer.putFloat(entry.getAnimationTime());
+            if (sharedPose != null && sharedPose.isInPhase(entry)) {
+                buffer.put((byte) 1);
+                buffer.putFloat(sharedPose.getTime());
+            } else {
+                buffer.put((byte) 0);
+            }
+        }
+        Array<Bone> bones = skeleton.getBones();
+        for (int i = 0; i < bones.size; i++) {
+            Bone bone = bones.get(i);
+            buffer.putFloat(bone.getX());
+            buffer.putFloat(bone.getY());
+            buffer.putFloat(bone.getRotation());
+            buffer.putFloat(bone.getScaleX());
+            buffer.putFloat(bone.getScaleY());
+        }
+        buffer.put((byte) posePending);
+        buffer.putFloat(poseDelta);
+    }
+    
+    @Override
+    public void readState(ByteBuffer buffer) {
+        super.readState(buffer);
+        Color.rgba8888ToColor(skeleton.getColor(), buffer.getInt());
+        animationState.clearTracks();
+        int animationIndex = buffer.getShort();
+        if (animationIndex != -1) {
+            Animation animation = skeleton.getData().getAnimations().get(animationIndex);
+            TrackEntry entry = animationState.setAnimation(0, animation, buffer.get() != 0);
+            entry.setTrackTime(buffer.getFloat());
+            entry.setAnimationLast(buffer.getFloat());
+            if (buffer.get() != 0) {
+                float sharedTime = buffer.getFloat();
+                if (sharedPose != null) {
+                    sharedPose.setTime(sharedTime);
+                }
+            }
+        }
+        Array<Bone> bones = skeleton.getBones();
+        for (int i = 0; i < bones.size; i++) {
+            Bone bone = bones.get(i);
+            bone.setX(buffer.getFloat());
+            bone.setY(buffer.getFloat());
+            bone.setRotation(buffer.getFloat());
+            bone.setScaleX(buffer.getFloat());
+            bone.setScaleY(buffer.getFloat());
+        }
+        posePending = buffer.get();
+        poseDelta = buffer.getFloat();
+        posed = false;
+    }
+
+    /**
+     * Time of the animation playing on track 0, or 0 if there is none.
+     */
+    public float getTrackTime() {
+        TrackEntry entry = animationState.getCurrent(0);
+        return entry == null ? 0.0f : entry.getTrackTime();
+    }
+    
+    public void setTrackTime(float trackTime) {
+        TrackEntry entry = animationState.getCurrent(0);
+        if (entry != null) {
+            entry.setTrackTime(trackTime);
+        }
+    }
+
+    public PosePriority getPosePriority() {
+        return posePriority;
+    }
+
+    /**
+     * Sets how often the skeleton is posed. Its first pose is offset by its id
+     * so skeletons spawned together do not all land on the same tick.
+     */
+    protected void setPosePriority(PosePriority posePriority) {
+        this.posePriority = posePriority;
+        posePending = Math.abs(getId()) % posePriority.getInterval();
+    }
+
+    public Skeleton getSkeleton() {
+        return skeleton;
+    }
+
+    public AnimationState getAnimationState() {
+        return animationState;
+    }
+
+    /**
+     * Returns the bounds of the current pose. They are only recomputed here,
+     * the first time they are asked for after the pose changed, so entities
+     * nobody tests against never pay for the polygon transform. Call this from
+     * the act phase, not from a pose worker.
+     */
+    public SkeletonBounds getSkeletonBounds() {
+        if (boundsDirty) {
+            skeletonBounds.update(skeleton, true);
+            boundsDirty = false;
+        }
+        return skeletonBounds;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ray3k.vegetablecommand;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.esotericsoftware.spine.Animation;
+import com.esotericsoftware.spine.Animation.EventTimeline;
+import com.esotericsoftware.spine.Animation.Timeline;
+import com.esotericsoftware.spine.AnimationStateData;
+import com.esotericsoftware.spine.BoneData;
+import com.esotericsoftware.spine.Event;
+import com.esotericsoftware.spine.SkeletonData;
+import com.esotericsoftware.spine.SlotData;
+import com.esotericsoftware.spine.attachments.Attachment;
+
+/**
+ * Shared, read-only parts of one skeleton archetype.
+ */
+public class SkeletonPrefab {
+    public static final String DEFAULT_ANIMATION = "animation";
+    private final SkeletonData skeletonData;
+    private final AnimationStateData animationStateData;
+    private final Animation animation;
+    private final boolean instanced;
+
+    public SkeletonPrefab(SkeletonData skeletonData, float defaultMix) {
+        this(skeletonData, defaultMix, false);
+    }
+    
+    public SkeletonPrefab(SkeletonData skeletonData, float defaultMix, boolean instanced) {
+        this.skeletonData = skeletonData;
+        animationStateData = new AnimationStateData(skeletonData);
+        animationStateData.setDefaultMix(defaultMix);
+        animation = findAnimation(DEFAULT_ANIMATION);
+        this.instanced = instanced;
+        if (instanced) {
+            SharedPose.validate(animation);
+        }
+    }
+    
+    public int findBoneIndex(String name) {
+        BoneData bone = skeletonData.findBone(name);
+        if (bone == null) {
+            throw new GdxRuntimeException("Bone not found: " + name);
+        }
+        return bone.getIndex();
+    }
+    
+    public int findSlotIndex(String name) {
+        SlotData slot = skeletonData.findSlot(name);
+        if (slot == null) {
+            throw new GdxRuntimeException("Slot not found: " + name);
+        }
+        return slot.getIndex();
+    }
+    
+    /**
+     * Looks up an attachment of the default skin. Attachments are shared and
+     * must not be modified.
+     */
+    public Attachment findAttachment(String slotName, String attachmentName) {
+        Attachment attachment = skeletonData.getDefaultSkin().getAttachment(findSlotIndex(slotName), attachmentName);
+        if (attachment == null) {
+            throw new GdxRuntimeException("Attachment not found: " + slotName + "/" + attachmentName);
+        }
+        return attachment;
+    }
+    
+    public Animation findAnimation(String name) {
+        Animation animation = skeletonData.findAnimation(name);
+        if (animation == null) {
+            throw new GdxRuntimeException("Animation not found: " + name);
+        }
+        return animation;
+    }
+
+    /**
+     * Time of the first key of the named event in the archetype's animation.
+     */
+    public float findEventTime(String name) {
+        Array<Timeline> timelines = animation.getTimelines();
+        for (int i = 0; i < timelines.size; i++) {
+            if (timelines.get(i) instanceof EventTimeline) {
+                Event[] events = ((EventTimeline) timelines.get(i)).getEvents();
+                for (Event event : events) {
+                    if (event.getData().getName().equals(name)) {
+                        return event.getTime();
+                    }
+                }
+            }
+        }
+        throw new GdxRuntimeException("Event not found: " + animation.getName() + "/" + name);
+    }
+
+    public SkeletonData getSkeletonData() {
+        return skeletonData;
+    }
+
+    public AnimationStateData getAnimationStateData() {
+        return animationStateData;
+    }
+
+    /**
+     * The animation named {@link #DEFAULT_ANIMATION}, which every archetype
+     * plays on track 0.
+     */
+    public Animation getAnimation() {
+        return animation;
+    }
+
+    /**
+     * Whether entities looping the animation in phase copy a {@link SharedPose}.
+     */
+    public boolean isInstanced() {
+        return instanced;
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.vegetablecommand;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntMap;
+
+/**
+ * Uniform grid broadphase keyed on {@link Entity#getCollisionBox()}.
+ */
+public class SpatialHash {
+    public static final float DEFAULT_CELL_SIZE = 64.0f;
+    private float cellSize;
+    private final IntMap<Array<Entity>> cells;
+    private final Array<Entity> members;
+    private int occupiedCells;
+    private int maxOccupancy;
+    private int cellEntries;
+
+    public SpatialHash() {
+        this(DEFAULT_CELL_SIZE);
+    }
+    
+    public SpatialHash(float cellSize) {
+        cells = new IntMap<Array<Entity>>();
+        members = new Array<Entity>();
+        setCellSize(cellSize);
+    }
+    
+    public void clear() {
+        for (Array<Entity> cell : cells.values()) {
+            cell.clear();
+        }
+        members.clear();
+        occupiedCells = 0;
+        maxOccupancy = 0;
+        cellEntries = 0;
+    }
+    
+    public void insert(Entity entity) {
+        Rectangle box = entity.getCollisionBox();
+        int minX = cellCoord(box.x);
+        int minY = cellCoord(box.y);
+        int maxX = cellCoord(box.x + box.width);
+        int maxY = cellCoord(box.y + box.height);
+        
+        for (int cx = minX; cx <= maxX; cx++) {
+            for (int cy = minY; cy <= maxY; cy++) {
+                int key = key(cx, cy);
+                Array<Entity> cell = cells.get(key);
+                if (cell == null) {
+                    cell = new Array<Entity>(false, 8);
+                    cells.put(key, cell);
+                }
+                
+                if (cell.size == 0) {
+                    occupiedCells++;
+                }
+                cell.add(entity);
+                cellEntries++;
+                if (cell.size > maxOccupancy) {
+                    maxOccupancy = cell.size;
+                }
+            }
+        }
+        
+        members.add(entity);
+    }
+    
+    /**
+     * Reports every overlapping pair once in each direction, matching the
+     * order the exhaustive pass used to call {@link Entity#collision(Entity)}.
+     * A pair sharing several cells is only reported from the first cell both
+     * boxes touch.
+     */
+    public void reportCollisions() {
+        entities:
+        for (int i = 0; i < members.size; i++) {
+            Entity entity = members.get(i);
+            Rectangle box = entity.getCollisionBox();
+            int minX = cellCoord(box.x);
+            int minY = cellCoord(box.y);
+            int maxX = cellCoord(box.x + box.width);
+            int maxY = cellCoord(box.y + box.height);
+            
+            for (int cx = minX; cx <= maxX; cx++) {
+                for (int cy = minY; cy <= maxY; cy++) {
+                    Array<Entity> cell = cells.get(key(cx, cy));
+                    for (int j = 0; j < cell.size; j++) {
+                        if (entity.isDestroyed() || !entity.isCheckingCollisions()) {
+                            continue entities;
+                        }
+                        
+                        Entity other = cell.get(j);
+                        if (other != entity && other.isCheckingCollisions()) {
+                            Rectangle otherBox = other.getCollisionBox();
+                            if (cellCoord(Math.max(box.x, otherBox.x)) == cx && cellCoord(Math.max(box.y, otherBox.y)) == cy && box.overlaps(otherBox)) {
+                                entity.collision(other);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+    
+    private int cellCoord(float value) {
+        return MathUtils.floor(value / cellSize);
+    }
+    
+    private static int key(int cx, int cy) {
+        return (cx << 16) ^ (cy & 0xFFFF);
+    }
+
+    public float getCellSize() {
+        return cellSize;
+    }
+
+    public void setCellSize(float cellSize) {
+        if (cellSize <= 0.0f) {
+            throw new IllegalArgumentException("Cell size must be positive: " + cellSize);
+        }
+        this.cellSize = cellSize;
+        cells.clear();
+        clear();
+    }
+    
+    public int getEntityCount() {
+        return members.size;
+    }
+    
+    public int getOccupiedCells() {
+        return occupiedCells;
+    }
+    
+    public int getMaxOccupancy() {
+        return maxOccupancy;
+    }
+    
+    public int getCellEntries() {
+        return cellEntries;
+    }
+    
+    public float getAverageOccupancy() {
+        return occupiedCells == 0 ? 0.0f : cellEntries / (float) occupiedCells;
+    }
+}
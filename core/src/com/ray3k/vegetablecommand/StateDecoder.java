@@ -0,0 +1,191 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ray3k.vegetablecommand;
+
+import com.badlogic.gdx.utils.IntMap;
+import com.badlogic.gdx.utils.Pool;
+import com.ray3k.vegetablecommand.StateEncoder.Track;
+import com.ray3k.vegetablecommand.entities.MissileEntity;
+import com.ray3k.vegetablecommand.entities.TurretEntity;
+import java.nio.ByteBuffer;
+
+/**
+ * Applies frames written by {@link StateEncoder} to puppet entities.
+ */
+public class StateDecoder {
+    private final GameWorld world;
+    private final IntMap<Track> tracks;
+    private final Pool<Track> trackPool;
+    private final int[] expected;
+    private final int[] actual;
+    private int frame;
+
+    public StateDecoder(GameWorld world) {
+        this.world = world;
+        tracks = new IntMap<Track>();
+        trackPool = new StateEncoder.TrackPool();
+        expected = new int[StateEncoder.CHANNELS];
+        actual = new int[StateEncoder.CHANNELS];
+    }
+    
+    /**
+     * Reads one frame and poses the puppets.
+     */
+    public void decode(ByteBuffer in) {
+        frame++;
+        for (int i = VarInt.read(in); i > 0; i--) {
+            Track track = tracks.remove(VarInt.read(in));
+            track.entity.discard();
+            track.entity = null;
+            trackPool.free(track);
+        }
+        
+        for (int i = VarInt.read(in); i > 0; i--) {
+            int id = VarInt.read(in);
+            byte type = in.get();
+            int end = VarInt.read(in);
+            end += in.position();
+            
+            Entity entity = EntityTypes.create(world, type);
+            entity.id = id;
+            entity.readState(in);
+            in.position(end);
+            
+            Track track = trackPool.obtain();
+            track.entity = entity;
+            track.frame = frame;
+            StateEncoder.quantize(entity, track.values);
+            for (int c = 0; c < StateEncoder.CHANNELS; c++) {
+                track.deltas[c] = 0;
+            }
+            tracks.put(id, track);
+        }
+        
+        for (Track track : tracks.values()) {
+            if (track.frame != frame) {
+                for (int c = 0; c < StateEncoder.CHANNELS; c++) {
+                    track.values[c] += track.deltas[c];
+                }
+            }
+        }
+        
+        for (int i = VarInt.read(in); i > 0; i--) {
+            Track track = tracks.get(VarInt.read(in));
+            int mask = in.get();
+            for (int c = 0; c < StateEncoder.CHANNELS; c++) {
+                if ((mask & 1 << c) != 0) {
+                    int residual = VarInt.readSigned(in);
+                    track.values[c] += residual;
+                    track.deltas[c] += residual;
+                }
+            }
+        }
+        
+        for (Track track : tracks.values()) {
+            pose(track);
+        }
+    }
+    
+    private void pose(Track track) {
+        Entity entity = track.entity;
+        entity.setPosition(track.values[StateEncoder.CHANNEL_X] / (float) StateEncoder.POSITION_SCALE, track.values[StateEncoder.CHANNEL_Y] / (float) StateEncoder.POSITION_SCALE);
+        entity.setRotation(track.values[StateEncoder.CHANNEL_ROTATION] / (float) StateEncoder.ANGLE_SCALE);
+        
+        if (entity instanceof TurretEntity) {
+            ((TurretEntity) entity).setAim(track.values[StateEncoder.CHANNEL_AIM] / (float) StateEncoder.ANGLE_SCALE);
+        } else if (entity instanceof MissileEntity) {
+            ((MissileEntity) entity).updateLine();
+        }
+        
+        if (entity instanceof SkeletonEntity) {
+            SkeletonEntity skeletonEntity = (SkeletonEntity) entity;
+            skeletonEntity.setTrackTime(track.values[StateEncoder.CHANNEL_TRACK_TIME] / (float) StateEncoder.TIME_SCALE);
+            skeletonEntity.updatePose(0.0f);
+        }
+    }
+    
+    /**
+     * Removes every puppet, ready for a stream that starts over.
+     */
+    public void reset() {
+        for (Track track : tracks.values()) {
+            track.entity.discard();
+            track.entity = null;
+            trackPool.free(track);
+        }
+        tracks.clear();
+        frame = 0;
+    }
+    
+    /**
+     * Compares the puppets against the world the last frame was encoded from,
+     * at the precision of the stream.
+     * @return the number of entities that are missing, extra or posed
+     * differently.
+     */
+    public int verify(GameWorld source) {
+        int mismatches = 0;
+        int found = 0;
+        EntityManager manager = source.getEntityManager();
+        for (int i = 0; i < manager.getEntityCount(); i++) {
+            Entity entity = manager.getEntity(i);
+            if (EntityTypes.getType(entity) == EntityTypes.NONE) {
+                continue;
+            }
+            
+            Track track = tracks.get(entity.getId());
+            if (track == null) {
+                mismatches++;
+                continue;
+            }
+            
+            found++;
+            StateEncoder.quantize(entity, expected);
+            StateEncoder.quantize(track.entity, actual);
+            for (int c = 0; c < StateEncoder.CHANNELS; c++) {
+                if (expected[c] != actual[c]) {
+                    mismatches++;
+                    break;
+                }
+            }
+        }
+        return mismatches + tracks.size - found;
+    }
+    
+    /**
+     * @return the puppet with the given id, or null if it is not alive.
+     */
+    public Entity getEntity(int id) {
+        Track track = tracks.get(id);
+        return track == null ? null : track.entity;
+    }
+    
+    public int getFrame() {
+        return frame;
+    }
+
+    public GameWorld getWorld() {
+        return world;
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ray3k.vegetablecommand;
+
+import com.badlogic.gdx.utils.ByteArray;
+import com.badlogic.gdx.utils.IntMap;
+import com.badlogic.gdx.utils.Pool;
+import com.ray3k.vegetablecommand.entities.TurretEntity;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes what every gameplay entity looks like after a tick, relative to the previous frame.
+ */
+public class StateEncoder {
+    public static final int POSITION_SCALE = 8;
+    public static final int ANGLE_SCALE = 10;
+    public static final int TIME_SCALE = 1000;
+    static final int CHANNEL_X = 0;
+    static final int CHANNEL_Y = 1;
+    static final int CHANNEL_ROTATION = 2;
+    static final int CHANNEL_TRACK_TIME = 3;
+    static final int CHANNEL_AIM = 4;
+    static final int CHANNELS = 5;
+    private final IntMap<Track> tracks;
+    private final Pool<Track> trackPool;
+    private final ByteArray spawns;
+    private final ByteArray despawns;
+    private final ByteArray updates;
+    private final int[] values;
+    private final int[] residuals;
+    private ByteBuffer state;
+    private int frame;
+    
+    /**
+     * Last quantized channel values of one entity and their change in the
+     * previous tick.
+     */
+    static class Track {
+        final int[] values = new int[CHANNELS];
+        final int[] deltas = new int[CHANNELS];
+        Entity entity;
+        int frame;
+    }
+    
+    static class TrackPool extends Pool<Track> {
+        @Override
+        protected Track newObject() {
+            return new Track();
+        }
+    }
+
+    public StateEncoder() {
+        tracks = new IntMap<Track>();
+        trackPool = new TrackPool();
+        spawns = new ByteArray(1024);
+        despawns = new ByteArray(64);
+        updates = new ByteArray(1024);
+        values = new int[CHANNELS];
+        residuals = new int[CHANNELS];
+        state = ByteBuffer.allocate(256);
+    }
+    
+    /**
+     * Appends the frame for the world's current state to {@code out}.
+     */
+    public void encode(GameWorld world, ByteArray out) {
+        frame++;
+        spawns.clear();
+        despawns.clear();
+        updates.clear();
+        int spawnCount = 0;
+        int despawnCount = 0;
+        int updateCount = 0;
+        
+        EntityManager manager = world.getEntityManager();
+        for (int i = 0; i < manager.getEntityCount(); i++) {
+            Entity entity = manager.getEntity(i);
+            byte type = EntityTypes.getType(entity);
+            if (type == EntityTypes.NONE) {
+                continue;
+            }
+            
+            quantize(entity, values);
+            Track track = tracks.get(entity.getId());
+            if (track == null) {
+                track = trackPool.obtain();
+                for (int c = 0; c < CHANNELS; c++) {
+                    track.values[c] = values[c];
+                    track.deltas[c] = 0;
+                }
+                tracks.put(entity.getId(), track);
+                writeSpawn(entity, type);
+                spawnCount++;
+            } else {
+                int mask = 0;
+                for (int c = 0; c < CHANNELS; c++) {
+                    residuals[c] = values[c] - track.values[c] - track.deltas[c];
+                    if (residuals[c] != 0) {
+                        mask |= 1 << c;
+                    }
+                    track.deltas[c] = values[c] - track.values[c];
+                    track.values[c] = values[c];
+                }
+                
+                if (mask != 0) {
+                    VarInt.write(updates, entity.getId());
+                    updates.add((byte) mask);
+                    for (int c = 0; c < CHANNELS; c++) {
+                        if (residuals[c] != 0) {
+                            VarInt.writeSigned(updates, residuals[c]);
+                        }
+                    }
+                    updateCount++;
+                }
+            }
+            track.frame = frame;
+        }
+        
+        IntMap.Entries<Track> entries = tracks.entries();
+        while (entries.hasNext()) {
+            IntMap.Entry<Track> entry = entries.next();
+            if (entry.value.frame != frame) {
+                VarInt.write(despawns, entry.key);
+                despawnCount++;
+                trackPool.free(entry.value);
+                entries.remove();
+            }
+        }
+        
+        VarInt.write(out, despawnCount);
+        out.addAll(despawns);
+        VarInt.write(out, spawnCount);
+        out.addAll(spawns);
+        VarInt.write(out, updateCount);
+        out.addAll(updates);
+    }
+    
+    private void writeSpawn(Entity entity, byte type) {
+        while (true) {
+            state.clear();
+            try {
+                entity.writeState(state);
+                break;
+            } catch (BufferOverflowException e) {
+                state = ByteBuffer.allocate(state.capacity() * 2);
+            }
+        }
+        
+        VarInt.write(spawns, entity.getId());
+        spawns.add(type);
+        VarInt.write(spawns, state.position());
+        spawns.addAll(state.array(), 0, state.position());
+    }
+    
+    /**
+     * Forgets every entity, so the next frame spawns everything again.
+     */
+    public void reset() {
+        for (Track track : tracks.values()) {
+            trackPool.free(track);
+        }
+        tracks.clear();
+        frame = 0;
+    }
+    
+    public int getFrame() {
+        return frame;
+    }
+    
+    /**
+     * Writes the quantized channels of the entity. Shared with the decoder so
+     * both sides agree on the values of a freshly spawned entity.
+     */
+    static void quantize(Entity entity, int[] values) {
+        values[CHANNEL_X] = Math.round(entity.getX() * POSITION_SCALE);
+        values[CHANNEL_Y] = Math.round(entity.getY() * POSITION_SCALE);
+        values[CHANNEL_ROTATION] = Math.round(entity.getRotation() * ANGLE_SCALE);
+        values[CHANNEL_TRACK_TIME] = 0;
+        if (entity instanceof SkeletonEntity) {
+            values[CHANNEL_TRACK_TIME] = Math.round(((SkeletonEntity) entity).getTrackTime() * TIME_SCALE);
+        }
+        values[CHANNEL_AIM] = 0;
+        if (entity instanceof TurretEntity) {
+            values[CHANNEL_AIM] = Math.round(((TurretEntity) entity).getAim() * ANGLE_SCALE);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ray3k.vegetablecommand;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Plays back a stream written by {@link StateStreamRecorder} without simulating.
+ */
+public class StateStreamPlayer {
+    private final ByteBuffer buffer;
+    private final long seed;
+    private final int tickRate;
+    private final long length;
+    private final GameWorld world;
+    private final StateDecoder decoder;
+
+    public StateStreamPlayer(Core core, FileHandle fileHandle) {
+        RandomAccessFile file = null;
+        try {
+            file = new RandomAccessFile(fileHandle.file(), "r");
+            buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Unable to open state stream: " + fileHandle, e);
+        } finally {
+            if (file != null) {
+                try {
+                    file.close();
+                } catch (IOException e) {
+                }
+            }
+        }
+        
+        if (buffer.getInt() != StateStreamRecorder.MAGIC) {
+            throw new GdxRuntimeException("Not a state stream: " + fileHandle);
+        }
+        int version = buffer.getInt();
+        if (version != StateStreamRecorder.VERSION) {
+            throw new GdxRuntimeException("Unsupported state stream version: " + version);
+        }
+        seed = buffer.getLong();
+        tickRate = buffer.getInt();
+        int worldWidth = buffer.getInt();
+        int worldHeight = buffer.getInt();
+        int playerCount = buffer.get();
+        length = buffer.getLong();
+        
+        world = new GameWorld(core, seed, worldWidth, worldHeight, playerCount);
+        decoder = new StateDecoder(world);
+    }
+    
+    /**
+     * Reads the next frame and poses the puppets.
+     * @return false if the stream has ended.
+     */
+    public boolean step() {
+        if (isFinished()) {
+            return false;
+        }
+        
+        decoder.decode(buffer);
+        return true;
+    }
+    
+    public void draw(SpriteBatch spriteBatch) {
+        world.draw(spriteBatch, 0.0f);
+    }
+    
+    /**
+     * Removes every puppet and returns to the first frame.
+     */
+    public void rewind() {
+        decoder.reset();
+        buffer.position(StateStreamRecorder.HEADER_SIZE);
+    }
+    
+    public boolean isFinished() {
+        return buffer.position() >= length;
+    }
+    
+    /**
+     * Number of frames read, one per recorded tick.
+     */
+    public int getFrame() {
+        return decoder.getFrame();
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getTickRate() {
+        return tickRate;
+    }
+
+    public GameWorld getWorld() {
+        return world;
+    }
+
+    public StateDecoder getDecoder() {
+        return decoder;
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ray3k.vegetablecommand;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.ByteArray;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Records a {@link StateEncoder} frame per tick into a memory mapped file.
+ */
+public class StateStreamRecorder {
+    public static final int MAGIC = 0x56435354;
+    public static final int VERSION = 3;
+    /**
+     * Size of each mapped window of the file.
+     */
+    public static final int DEFAULT_CAPACITY = 1024 * 1024;
+    /**
+     * Largest stream {@link StateStreamPlayer} can map.
+     */
+    public static final long MAX_CAPACITY = Integer.MAX_VALUE;
+    static final int LENGTH_POSITION = 29;
+    static final int HEADER_SIZE = 37;
+    private final StateEncoder encoder;
+    private final ByteArray frameBytes;
+    private RandomAccessFile file;
+    private FileChannel channel;
+    private MappedByteBuffer header;
+    private MappedByteBuffer mapped;
+    private long mappedStart;
+
+    public StateStreamRecorder() {
+        encoder = new StateEncoder();
+        frameBytes = new ByteArray(1024);
+    }
+    
+    public void begin(FileHandle fileHandle, GameWorld world, int tickRate) {
+        end();
+        
+        fileHandle.parent().mkdirs();
+        try {
+            file = new RandomAccessFile(fileHandle.file(), "rw");
+            file.setLength(0);
+            channel = file.getChannel();
+            header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            mapped = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE, DEFAULT_CAPACITY);
+            mappedStart = HEADER_SIZE;
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Unable to record state stream: " + fileHandle, e);
+        }
+        encoder.reset();
+        
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        header.putLong(world.getSeed());
+        header.putInt(tickRate);
+        header.putInt(world.getWorldWidth());
+        header.putInt(world.getWorldHeight());
+        header.put((byte) world.getPlayerCount());
+        header.putLong(HEADER_SIZE);
+    }
+    
+    /**
+     * Appends one frame. Called by {@link GameWorld} after every tick.
+     */
+    public void record(GameWorld world) {
+        if (mapped == null) {
+            return;
+        }
+        
+        frameBytes.clear();
+        encoder.encode(world, frameBytes);
+        ensureCapacity(frameBytes.size);
+        mapped.put(frameBytes.items, 0, frameBytes.size);
+        header.putLong(LENGTH_POSITION, getLength());
+    }
+    
+    /**
+     * Moves the window to the end of the stream when the frame does not fit.
+     * The full window is flushed first; its mapping is released by the
+     * garbage collector.
+     */
+    private void ensureCapacity(int size) {
+        if (mapped.remaining() >= size) {
+            return;
+        }
+        
+        long position = getLength();
+        if (position + size > MAX_CAPACITY) {
+            end();
+            throw new GdxRuntimeException("State stream exceeds " + MAX_CAPACITY + " bytes, recording stopped at frame " + encoder.getFrame() + ".");
+        }
+        
+        mapped.force();
+        try {
+            mapped = channel.map(FileChannel.MapMode.READ_WRITE, position, Math.max(DEFAULT_CAPACITY, size));
+            mappedStart = position;
+        } catch (IOException e) {
+            mapped = null;
+            throw new GdxRuntimeException("Unable to grow state stream.", e);
+        }
+    }
+    
+    /**
+     * Flushes the stream, truncates the file to the recorded length and
+     * closes it. If the platform refuses to truncate a file that is still
+     * mapped, the padding is left in place; players stop at the recorded
+     * length anyway.
+     */
+    public void end() {
+        if (mapped == null) {
+            return;
+        }
+        
+        long length = getLength();
+        mapped.force();
+        header.force();
+        mapped = null;
+        header = null;
+        try {
+            try {
+                channel.truncate(length);
+            } catch (IOException e) {
+                Gdx.app.error(getClass().getSimpleName(), "Unable to truncate state stream to " + length + " bytes.", e);
+            }
+            channel.close();
+            file.close();
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Unable to close state stream.", e);
+        } finally {
+            channel = null;
+            file = null;
+        }
+    }
+    
+    private long getLength() {
+        return mappedStart + mapped.position();
+    }
+    
+    public boolean isRecording() {
+        return mapped != null;
+    }
+    
+    public int getFrame() {
+        return encoder.getFrame();
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.vegetablecommand;
+
+/**
+ * Player input for a single tick, in world coordinates.
+ */
+public class TickInput {
+    private boolean firing;
+    private int pointerX;
+    private int pointerY;
+
+    public void set(boolean firing, int pointerX, int pointerY) {
+        this.firing = firing;
+        this.pointerX = pointerX;
+        this.pointerY = pointerY;
+    }
+    
+    public void set(TickInput other) {
+        set(other.firing, other.pointerX, other.pointerY);
+    }
+    
+    public void clear() {
+        set(false, 0, 0);
+    }
+
+    public boolean isFiring() {
+        return firing;
+    }
+
+    public void setFiring(boolean firing) {
+        this.firing = firing;
+    }
+
+    public int getPointerX() {
+        return pointerX;
+    }
+
+    public void setPointerX(int pointerX) {
+        this.pointerX = pointerX;
+    }
+
+    public int getPointerY() {
+        return pointerY;
+    }
+
+    public void setPointerY(int pointerY) {
+        this.pointerY = pointerY;
+    }
+}
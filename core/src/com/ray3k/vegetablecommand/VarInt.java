@@ -0,0 +1,86 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.vegetablecommand;
+
+import com.badlogic.gdx.utils.ByteArray;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import java.nio.ByteBuffer;
+
+/**
+ * LEB128 style variable length integers, zigzag encoded when signed.
+ */
+public final class VarInt {
+    private VarInt() {
+    }
+    
+    public static void write(ByteArray out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.add((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.add((byte) value);
+    }
+    
+    public static void writeSigned(ByteArray out, int value) {
+        write(out, (value << 1) ^ (value >> 31));
+    }
+    
+    /**
+     * Writes a fixed width big endian int, readable with
+     * {@link ByteBuffer#getInt()}.
+     */
+    public static void writeFixedInt(ByteArray out, int value) {
+        for (int i = 24; i >= 0; i -= 8) {
+            out.add((byte) (value >>> i));
+        }
+    }
+    
+    /**
+     * Writes a fixed width big endian long, readable with
+     * {@link ByteBuffer#getLong()}.
+     */
+    public static void writeFixedLong(ByteArray out, long value) {
+        for (int i = 56; i >= 0; i -= 8) {
+            out.add((byte) (value >>> i));
+        }
+    }
+    
+    public static int read(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new GdxRuntimeException("Malformed varint at position " + in.position());
+    }
+    
+    public static int readSigned(ByteBuffer in) {
+        int value = read(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -24,22 +24,21 @@
 
 package com.ray3k.vegetablecommand.entities;
 
-import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.scenes.scene2d.utils.Drawable;
 import com.badlogic.gdx.scenes.scene2d.utils.TextureRegionDrawable;
 import com.ray3k.vegetablecommand.Entity;
-import com.ray3k.vegetablecommand.states.GameState;
+import com.ray3k.vegetablecommand.GameWorld;
 
 public class BackgroundEntity extends Entity {
 
-    private GameState gameState;
+    private GameWorld world;
     Drawable drawable;
     
-    public BackgroundEntity(GameState gameState) {
-        super(gameState.getEntityManager(), gameState.getCore());
-        this.gameState = gameState;
+    public BackgroundEntity(GameWorld world) {
+        super(world.getEntityManager(), world.getCore());
+        this.world = world;
     }
 
     @Override
@@ -60,7 +59,7 @@ public class BackgroundEntity extends Entity {
 
     @Override
     public void draw(SpriteBatch spriteBatch, float delta) {
-        drawable.draw(spriteBatch, getX(), getY(), Gdx.graphics.getWidth(), 117.0f);
+        drawable.draw(spriteBatch, getX(), getY(), world.getWorldWidth(), 117.0f);
     }
 
     @Override
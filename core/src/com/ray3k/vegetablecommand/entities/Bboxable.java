@@ -24,7 +24,7 @@
 package com.ray3k.vegetablecommand.entities;
 
 import com.esotericsoftware.spine.SkeletonBounds;
-import com.ray3k.vegetablecommand.states.GameState.Team;
+import com.ray3k.vegetablecommand.GameWorld.Team;
 
 /**
  *
@@ -25,36 +25,27 @@
 package com.ray3k.vegetablecommand.entities;
 
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
-import com.esotericsoftware.spine.AnimationState;
-import com.esotericsoftware.spine.AnimationStateData;
-import com.esotericsoftware.spine.Skeleton;
-import com.esotericsoftware.spine.SkeletonBounds;
-import com.esotericsoftware.spine.SkeletonData;
-import com.ray3k.vegetablecommand.Core;
 import com.ray3k.vegetablecommand.Entity;
-import com.ray3k.vegetablecommand.states.GameState;
-import com.ray3k.vegetablecommand.states.GameState.Team;
+import com.ray3k.vegetablecommand.GameWorld;
+import com.ray3k.vegetablecommand.GameWorld.Team;
+import com.ray3k.vegetablecommand.SkeletonEntity;
+import com.ray3k.vegetablecommand.SkeletonEntity.PosePriority;
+import com.ray3k.vegetablecommand.SkeletonPrefab;
 
-public class CityEntity extends Entity implements Bboxable {
-    private Skeleton skeleton;
-    private AnimationState animationState;
-    private SkeletonBounds skeletonBounds;
-    private GameState gameState;
+public class CityEntity extends SkeletonEntity implements Bboxable {
+    private GameWorld world;
     private Team team;
     
-    public CityEntity(GameState gameState) {
-        super(gameState.getEntityManager(), gameState.getCore());
-        this.gameState = gameState;
-        SkeletonData skeletonData = getCore().getAssetManager().get(Core.DATA_PATH + "/spine/city.json", SkeletonData.class);
-        skeleton = new Skeleton(skeletonData);
-        AnimationStateData animationStateData = new AnimationStateData(skeletonData);
-        animationStateData.setDefaultMix(.25f);
-        animationState = new AnimationState(animationStateData);
-        animationState.setAnimation(0, "animation", true);
+    public CityEntity(GameWorld world) {
+        super(world.getEntityManager(), world.getCore());
+        this.world = world;
+        SkeletonPrefab prefab = getCore().getPrefabs().getCity();
+        createSkeleton(prefab);
+        getAnimationState().setAnimation(0, prefab.getAnimation(), true);
+        setPosePriority(PosePriority.LOW);
         
-        skeletonBounds = new SkeletonBounds();
-        skeletonBounds.update(skeleton, true);
         team = Team.PLAYER;
+        setCollisionLayer(team.getLayer());
     }
 
     @Override
@@ -63,11 +54,6 @@ public class CityEntity extends Entity implements Bboxable {
 
     @Override
     public void act(float delta) {
-        skeleton.setPosition(getX(), getY());
-        animationState.update(delta);
-        skeleton.updateWorldTransform();
-        animationState.apply(skeleton);
-        skeletonBounds.update(skeleton, true);
     }
 
     @Override
@@ -77,14 +63,14 @@ public class CityEntity extends Entity implements Bboxable {
 
     @Override
     public void draw(SpriteBatch spriteBatch, float delta) {
-        getCore().getSkeletonRenderer().draw(spriteBatch, skeleton);
+        getCore().getSkeletonRenderer().draw(spriteBatch, getSkeleton());
     }
 
     @Override
     public void destroy() {
-        gameState.getCities().removeValue(this, true);
-        if (gameState.getCities().size == 0) {
-            new GameOverTimerEntity(gameState, 2.0f);
+        world.getCities().removeValue(this, true);
+        if (world.getCities().size == 0) {
+            new GameOverTimerEntity(world, 2.0f);
         }
     }
 
@@ -93,12 +79,7 @@ public class CityEntity extends Entity implements Bboxable {
     }
 
     @Override
-    public SkeletonBounds getSkeletonBounds() {
-        return skeletonBounds;
-    }
-
-    @Override
-    public GameState.Team getTeam() {
+    public Team getTeam() {
         return team;
     }
     
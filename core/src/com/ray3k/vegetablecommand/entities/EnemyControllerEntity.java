@@ -24,17 +24,19 @@
 
 package com.ray3k.vegetablecommand.entities;
 
-import com.badlogic.gdx.Gdx;
+import com.badlogic.ashley.utils.ImmutableArray;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
-import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Array;
 import com.ray3k.vegetablecommand.Entity;
-import com.ray3k.vegetablecommand.states.GameState;
+import com.ray3k.vegetablecommand.GameWorld;
+import com.ray3k.vegetablecommand.GameWorld.Team;
+import com.ray3k.vegetablecommand.RandomService.Stream;
+import java.nio.ByteBuffer;
 
 public class EnemyControllerEntity extends Entity {
-    private GameState gameState;
+    private GameWorld world;
     private float difficulty;
     private int missileCounter;
     private int planeCounter;
@@ -43,12 +45,13 @@ public class EnemyControllerEntity extends Entity {
     private float missileTimer;
     private float planeTimer;
     private float missileSpeed;
-    private static final Vector2 temp = new Vector2();
+    private final Array<Entity> targets;
 
-    public EnemyControllerEntity(GameState gameState, float difficulty) {
-        super(gameState.getEntityManager(), gameState.getCore());
-        this.gameState = gameState;
+    public EnemyControllerEntity(GameWorld world, float difficulty) {
+        super(world.getEntityManager(), world.getCore());
+        this.world = world;
         this.difficulty = difficulty;
+        targets = new Array<Entity>();
         missileCounter = (int) (15 * difficulty);
         planeCounter = (int) (3 * difficulty);
         levelTime = 20.0f;
@@ -58,10 +61,21 @@ public class EnemyControllerEntity extends Entity {
         missileTimer = levelTime / missileCounter;
         planeTimer = levelTime / planeCounter;
         
-        for (TurretEntity turret : gameState.getTurrets()) {
+        for (TurretEntity turret : world.getTurrets()) {
             turret.setMissileCount((int)(10 * difficulty));
         }
     }
+    
+    /**
+     * Creates a controller whose state is read from a snapshot with
+     * {@link #readState(ByteBuffer)}. Unlike a new level, the turrets keep
+     * their missile counts.
+     */
+    public EnemyControllerEntity(GameWorld world) {
+        super(world.getEntityManager(), world.getCore());
+        this.world = world;
+        targets = new Array<Entity>();
+    }
 
     @Override
     public void create() {
@@ -74,15 +88,16 @@ public class EnemyControllerEntity extends Entity {
             missileTimer -= delta;
             if (missileTimer < 0) {
                 missileTimer = levelTime / missileCounter;
-                Array<Entity> targets = new Array<Entity>();
-                targets.addAll(gameState.getCities());
-                targets.addAll(gameState.getTurrets());
-                Entity target = targets.random();
+                targets.addAll(world.getCities());
+                targets.addAll(world.getTurrets());
+                Entity target = world.getRandom().random(Stream.TARGETING, targets);
+                targets.clear();
                 if (target != null) {
-                    MissileEntity missile = new MissileEntity(gameState, MathUtils.random(Gdx.graphics.getWidth()), Gdx.graphics.getHeight(), target.getX(), target.getY(), missileSpeed);
-                    missile.setTeam(GameState.Team.ENEMY);
+                    MissileEntity missile = world.spawnMissile(world.getRandom().random(Stream.SPAWN, world.getWorldWidth()), world.getWorldHeight(), target.getX(), target.getY(), missileSpeed);
+                    missile.setTeam(Team.ENEMY);
                     missile.setColor(Color.RED);
                     
+                    Vector2 temp = world.getTemp1();
                     temp.set(target.getX(), target.getY());
                     temp.sub(missile.getX(), missile.getY());
                     missile.setRotation(temp.angle());
@@ -91,32 +106,37 @@ public class EnemyControllerEntity extends Entity {
 
             planeTimer -= delta;
             if (planeTimer < 0) {
-                PlaneEntity plane = new PlaneEntity(gameState);
-                plane.setPosition(0.0f, Gdx.graphics.getHeight() - 75.0f);
+                PlaneEntity plane = new PlaneEntity(world);
+                plane.setPosition(0.0f, world.getWorldHeight() - 75.0f);
                 planeTimer = levelTime / planeCounter;
             }
 
             levelTimer -= delta;
         } else {
-            boolean newLevel = true;
-            for (Entity entity : gameState.getEntityManager().getEntities()) {
-                if (entity instanceof PlaneEntity) {
+            boolean newLevel = !hasLiveEntity(getManager().getFamily(PlaneEntity.class));
+            
+            ImmutableArray<MissileEntity> missiles = getManager().getFamily(MissileEntity.class);
+            for (int i = 0; newLevel && i < missiles.size(); i++) {
+                MissileEntity missile = missiles.get(i);
+                if (!missile.isDestroyed() && missile.getTeam() == Team.ENEMY) {
                     newLevel = false;
-                    break;
-                } else if (entity instanceof MissileEntity) {
-                    MissileEntity missile = (MissileEntity) entity;
-                    if (missile.getTeam() == GameState.Team.ENEMY) {
-                        newLevel = false;
-                        break;
-                    }
                 }
             }
             
             if (newLevel) {
                 dispose();
-                gameState.newLevel();
+                world.newLevel();
+            }
+        }
+    }
+
+    private boolean hasLiveEntity(ImmutableArray<? extends Entity> family) {
+        for (int i = 0; i < family.size(); i++) {
+            if (!family.get(i).isDestroyed()) {
+                return true;
             }
         }
+        return false;
     }
 
     @Override
@@ -135,6 +155,32 @@ public class EnemyControllerEntity extends Entity {
     public void collision(Entity other) {
     }
 
+    @Override
+    public void writeState(ByteBuffer buffer) {
+        super.writeState(buffer);
+        buffer.putFloat(difficulty);
+        buffer.putInt(missileCounter);
+        buffer.putInt(planeCounter);
+        buffer.putFloat(levelTime);
+        buffer.putFloat(levelTimer);
+        buffer.putFloat(missileTimer);
+        buffer.putFloat(planeTimer);
+        buffer.putFloat(missileSpeed);
+    }
+
+    @Override
+    public void readState(ByteBuffer buffer) {
+        super.readState(buffer);
+        difficulty = buffer.getFloat();
+        missileCounter = buffer.getInt();
+        planeCounter = buffer.getInt();
+        levelTime = buffer.getFloat();
+        levelTimer = buffer.getFloat();
+        missileTimer = buffer.getFloat();
+        planeTimer = buffer.getFloat();
+        missileSpeed = buffer.getFloat();
+    }
+
     public float getMissileSpeed() {
         return missileSpeed;
     }
@@ -24,52 +24,115 @@
 package com.ray3k.vegetablecommand.entities;
 
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.math.Circle;
+import com.badlogic.gdx.math.Intersector;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.Pool.Poolable;
 import com.esotericsoftware.spine.AnimationState;
-import com.esotericsoftware.spine.AnimationStateData;
+import com.esotericsoftware.spine.Bone;
 import com.esotericsoftware.spine.Event;
-import com.esotericsoftware.spine.Skeleton;
 import com.esotericsoftware.spine.SkeletonBounds;
-import com.esotericsoftware.spine.SkeletonData;
-import com.ray3k.vegetablecommand.Core;
+import com.ray3k.vegetablecommand.BakedCurve;
 import com.ray3k.vegetablecommand.Entity;
-import com.ray3k.vegetablecommand.states.GameState;
-import com.ray3k.vegetablecommand.states.GameState.Team;
+import com.ray3k.vegetablecommand.GameWorld;
+import com.ray3k.vegetablecommand.GameWorld.Team;
+import com.ray3k.vegetablecommand.PrefabRegistry;
+import com.ray3k.vegetablecommand.SkeletonEntity;
+import com.ray3k.vegetablecommand.SkeletonPrefab;
+import java.nio.ByteBuffer;
 
-public class ExplosionEntity extends Entity {
+/**
+ * Grows and destroys every opposing entity it touches, from a {@link BakedCurve} when one could be baked.
+ */
+public class ExplosionEntity extends SkeletonEntity implements Poolable {
 
-    private Skeleton skeleton;
-    private AnimationState animationState;
-    private SkeletonBounds skeletonBounds;
-    private GameState gameState;
+    private GameWorld world;
     private Team team;
+    private boolean killed;
     private static final int MISSILE_SCORE = 10;
     private static final int PLANE_SCORE = 30;
+    private final BakedCurve curve;
+    private final Circle circle;
+    private final float killTime;
+    private final Bone scaleBone;
+    private float time;
 
-    public ExplosionEntity(GameState gameState) {
-        super(gameState.getEntityManager(), gameState.getCore());
-        this.gameState = gameState;
-        SkeletonData skeletonData = getCore().getAssetManager().get(Core.DATA_PATH + "/spine/explosion.json", SkeletonData.class);
-        skeleton = new Skeleton(skeletonData);
-        AnimationStateData animationStateData = new AnimationStateData(skeletonData);
-        animationStateData.setDefaultMix(0.0f);
-        animationState = new AnimationState(animationStateData);
-        animationState.setAnimation(0, "animation", false);
-        animationState.apply(skeleton);
-        animationState.update(0);
-        skeleton.updateWorldTransform();
-        animationState.addListener(new AnimationState.AnimationStateAdapter() {
-            @Override
-            public void event(AnimationState.TrackEntry entry, Event event) {
-                super.event(entry, event);
-                if (event.getData().getName().equals("kill")) {
-                    ExplosionEntity.this.dispose();
+    public ExplosionEntity(GameWorld world) {
+        super(world.getEntityManager(), world.getCore(), false);
+        this.world = world;
+        PrefabRegistry prefabs = getCore().getPrefabs();
+        SkeletonPrefab prefab = prefabs.getExplosion();
+        createSkeleton(prefab);
+        curve = prefabs.getExplosionCurve();
+        circle = prefabs.getExplosionCircle();
+        killTime = prefabs.getExplosionKillTime();
+        
+        if (curve == null) {
+            scaleBone = null;
+            getAnimationState().addListener(new AnimationState.AnimationStateAdapter() {
+                @Override
+                public void event(AnimationState.TrackEntry entry, Event event) {
+                    super.event(entry, event);
+                    if (event.getData().getName().equals("kill")) {
+                        killed = true;
+                    }
                 }
-            }
 
-        });
+            });
+        } else {
+            scaleBone = getSkeleton().getBones().get(curve.getBoneIndex());
+        }
+    }
+    
+    public void init(float x, float y, Team team) {
+        spawn();
+        setPosition(x, y);
+        setTeam(team);
+        killed = false;
+        
+        if (curve == null) {
+            getAnimationState().setAnimation(0, getCore().getPrefabs().getExplosion().getAnimation(), false);
+            getAnimationState().apply(getSkeleton());
+            getAnimationState().update(0);
+            getSkeleton().updateWorldTransform();
+            invalidateBounds();
+        } else {
+            time = 0.0f;
+            poseCurve();
+        }
+    }
+    
+    @Override
+    public void updatePose(float delta) {
+        if (curve == null) {
+            super.updatePose(delta);
+        } else {
+            time += delta;
+            poseCurve();
+        }
+    }
+    
+    private void poseCurve() {
+        getSkeleton().setPosition(getX(), getY());
+        float scale = curve.getScale(time);
+        scaleBone.setScale(scale, scale);
+        getSkeleton().updateWorldTransform();
+        invalidateBounds();
+    }
+
+    @Override
+    public void reset() {
+        getAnimationState().clearTracks();
+        getSkeleton().setToSetupPose();
+        team = null;
+        time = 0.0f;
+    }
 
-        skeletonBounds = new SkeletonBounds();
-        skeletonBounds.update(skeleton, true);
+    @Override
+    protected void recycle() {
+        world.getExplosionPool().free(this);
     }
 
     @Override
@@ -78,32 +141,87 @@ public class ExplosionEntity extends Entity {
 
     @Override
     public void act(float delta) {
-        skeleton.setPosition(getX(), getY());
-        animationState.update(delta);
-        skeleton.updateWorldTransform();
-        animationState.apply(skeleton);
-        skeletonBounds.update(skeleton, true);
         int multiplier = 1;
+        
+        float scale = 0.0f;
+        float x = 0.0f;
+        float y = 0.0f;
+        if (curve != null) {
+            if (time >= killTime) {
+                killed = true;
+            }
+            scale = curve.getWorldScale(time);
+            x = getX() + curve.getOriginX() + circle.x * scale;
+            y = getY() + curve.getOriginY() + circle.y * scale;
+        }
 
-        for (Entity entity : gameState.getEntityManager().getEntities()) {
-            if (entity instanceof Bboxable) {
-                Bboxable bboxable = (Bboxable) entity;
-                boolean canBeDestroyed = (!(entity instanceof MissileEntity) || ((MissileEntity) entity).isDestroyable());
-                if (canBeDestroyed && !bboxable.getTeam().equals(getTeam())) {
-                    if (skeletonBounds.aabbIntersectsSkeleton(bboxable.getSkeletonBounds())) {
+        int mask = getCollisionMask();
+        for (int layer = 0; mask != 0; layer++, mask >>>= 1) {
+            if ((mask & 1) == 0) {
+                continue;
+            }
+            
+            Array<Entity> targets = getManager().getLayer(layer);
+            for (int i = 0; i < targets.size; i++) {
+                Entity entity = targets.get(i);
+                if (!entity.isDestroyed() && entity instanceof Bboxable) {
+                    Bboxable bboxable = (Bboxable) entity;
+                    boolean hit;
+                    if (curve == null) {
+                        hit = getSkeletonBounds().aabbIntersectsSkeleton(bboxable.getSkeletonBounds());
+                    } else {
+                        hit = overlaps(bboxable.getSkeletonBounds(), x, y, circle.radius * scale);
+                    }
+                    
+                    if (hit) {
                         entity.dispose();
                         
                         if (entity instanceof MissileEntity) {
-                            gameState.addScore((int) (MISSILE_SCORE * gameState.getEnemyController().getDifficulty()) * multiplier);
+                            world.addScore((int) (MISSILE_SCORE * world.getEnemyController().getDifficulty()) * multiplier);
                             multiplier++;
                         } else if (entity instanceof PlaneEntity) {
-                            gameState.addScore((int) (PLANE_SCORE * gameState.getEnemyController().getDifficulty()) * multiplier);
+                            world.addScore((int) (PLANE_SCORE * world.getEnemyController().getDifficulty()) * multiplier);
                             multiplier++;
                         }
                     }
                 }
             }
         }
+        
+        if (killed) {
+            dispose();
+        }
+    }
+    
+    /**
+     * Tests a circle against the bounding polygons, rejecting by their AABB
+     * first. The circle overlaps a polygon if its center is inside or an edge
+     * is within its radius.
+     */
+    private static boolean overlaps(SkeletonBounds bounds, float x, float y, float radius) {
+        float dx = x - MathUtils.clamp(x, bounds.getMinX(), bounds.getMaxX());
+        float dy = y - MathUtils.clamp(y, bounds.getMinY(), bounds.getMaxY());
+        if (dx * dx + dy * dy > radius * radius) {
+            return false;
+        }
+        
+        Array<FloatArray> polygons = bounds.getPolygons();
+        for (int i = 0; i < polygons.size; i++) {
+            FloatArray polygon = polygons.get(i);
+            if (bounds.containsPoint(polygon, x, y)) {
+                return true;
+            }
+            
+            float[] vertices = polygon.items;
+            int count = polygon.size;
+            for (int j = 0; j < count; j += 2) {
+                int next = (j + 2) % count;
+                if (Intersector.distanceSegmentPoint(vertices[j], vertices[j + 1], vertices[next], vertices[next + 1], x, y) <= radius) {
+                    return true;
+                }
+            }
+        }
+        return false;
     }
 
     @Override
@@ -113,7 +231,7 @@ public class ExplosionEntity extends Entity {
 
     @Override
     public void draw(SpriteBatch spriteBatch, float delta) {
-        getCore().getSkeletonRenderer().draw(spriteBatch, skeleton);
+        getCore().getSkeletonRenderer().draw(spriteBatch, getSkeleton());
     }
 
     @Override
@@ -124,11 +242,45 @@ public class ExplosionEntity extends Entity {
     public void collision(Entity other) {
     }
 
+    @Override
+    public void writeState(ByteBuffer buffer) {
+        super.writeState(buffer);
+        buffer.put((byte) team.ordinal());
+        buffer.put((byte) (killed ? 1 : 0));
+        buffer.putFloat(time);
+    }
+
+    /**
+     * Expects an entity freshly obtained from the explosion pool and spawned.
+     */
+    @Override
+    public void readState(ByteBuffer buffer) {
+        super.readState(buffer);
+        team = Team.get(buffer.get());
+        killed = buffer.get() != 0;
+        time = buffer.getFloat();
+    }
+
+    @Override
+    public float getTrackTime() {
+        return curve == null ? super.getTrackTime() : time;
+    }
+
+    @Override
+    public void setTrackTime(float trackTime) {
+        if (curve == null) {
+            super.setTrackTime(trackTime);
+        } else {
+            time = trackTime;
+        }
+    }
+
     public Team getTeam() {
         return team;
     }
 
     public void setTeam(Team team) {
         this.team = team;
+        setCollisionMask(1 << team.getOpponent().getLayer());
     }
 }
@@ -26,16 +26,16 @@ package com.ray3k.vegetablecommand.entities;
 
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.ray3k.vegetablecommand.Entity;
-import com.ray3k.vegetablecommand.states.GameOverState;
-import com.ray3k.vegetablecommand.states.GameState;
+import com.ray3k.vegetablecommand.GameWorld;
+import java.nio.ByteBuffer;
 
 public class GameOverTimerEntity extends Entity {
     private float time;
-    private GameState gameState;
+    private GameWorld world;
     
-    public GameOverTimerEntity(GameState gameState, float time) {
-        super(gameState.getEntityManager(), gameState.getCore());
-        this.gameState = gameState;
+    public GameOverTimerEntity(GameWorld world, float time) {
+        super(world.getEntityManager(), world.getCore());
+        this.world = world;
         this.time = time;
     }
     
@@ -48,8 +48,7 @@ public class GameOverTimerEntity extends Entity {
         time -= delta;
         if (time < 0) {
             dispose();
-            ((GameOverState) getCore().getStateManager().getState("game-over")).setScore(gameState.getScore());
-            getCore().getStateManager().loadState("game-over");
+            world.gameOver();
         }
     }
 
@@ -69,4 +68,16 @@ public class GameOverTimerEntity extends Entity {
     public void collision(Entity other) {
     }
 
+    @Override
+    public void writeState(ByteBuffer buffer) {
+        super.writeState(buffer);
+        buffer.putFloat(time);
+    }
+
+    @Override
+    public void readState(ByteBuffer buffer) {
+        super.readState(buffer);
+        time = buffer.getFloat();
+    }
+
 }
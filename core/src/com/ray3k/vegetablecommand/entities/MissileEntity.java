@@ -29,49 +29,51 @@ import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Array;
-import com.esotericsoftware.spine.AnimationState;
-import com.esotericsoftware.spine.AnimationStateData;
-import com.esotericsoftware.spine.Skeleton;
-import com.esotericsoftware.spine.SkeletonBounds;
-import com.esotericsoftware.spine.SkeletonData;
+import com.badlogic.gdx.utils.Pool.Poolable;
+import com.esotericsoftware.spine.Bone;
 import com.ray3k.vegetablecommand.Core;
 import com.ray3k.vegetablecommand.Entity;
-import com.ray3k.vegetablecommand.states.GameState;
-import com.ray3k.vegetablecommand.states.GameState.Team;
-
-public class MissileEntity extends Entity implements Bboxable {
-    private Skeleton skeleton;
-    private AnimationState animationState;
-    private SkeletonBounds skeletonBounds;
-    private GameState gameState;
+import com.ray3k.vegetablecommand.GameWorld;
+import com.ray3k.vegetablecommand.GameWorld.Sound;
+import com.ray3k.vegetablecommand.GameWorld.Team;
+import com.ray3k.vegetablecommand.RandomService.Stream;
+import com.ray3k.vegetablecommand.SkeletonEntity;
+import com.ray3k.vegetablecommand.SkeletonPrefab;
+import java.nio.ByteBuffer;
+
+public class MissileEntity extends SkeletonEntity implements Bboxable, Poolable {
+    private GameWorld world;
     private boolean scored;
     private float originX;
     private float originY;
     private float targetX;
     private float targetY;
     private float missileSpeed;
-    private static final Vector2 temp1 = new Vector2();
-    private static final Vector2 temp2 = new Vector2();
     private boolean destroyable;
     private Team team;
     private TextureRegion textureRegion;
+    private String textureName;
+    private final Bone lineBone;
 
-    public MissileEntity(GameState gameState, float originX, float originY, float targetX, float targetY, float speed) {
-        super(gameState.getEntityManager(), gameState.getCore());
-        this.gameState = gameState;
+    public MissileEntity(GameWorld world) {
+        super(world.getEntityManager(), world.getCore(), false);
+        this.world = world;
         
-        Array<String> names = getCore().getImagePacks().get(Core.DATA_PATH + "/vegetables");
-        textureRegion = getCore().getAtlas().findRegion(names.random());
+        SkeletonPrefab prefab = getCore().getPrefabs().getMissile();
+        createSkeleton(prefab);
+        lineBone = getSkeleton().getBones().get(getCore().getPrefabs().getLineBone());
+    }
+    
+    public void init(float originX, float originY, float targetX, float targetY, float speed) {
+        spawn();
+        
+        if (getCore().getAtlas() != null) {
+            Array<String> names = getCore().getImagePacks().get(Core.DATA_PATH + "/vegetables");
+            textureName = world.getRandom().random(Stream.COSMETIC, names);
+            textureRegion = getCore().getAtlas().findRegion(textureName);
+        }
         
-        SkeletonData skeletonData = getCore().getAssetManager().get(Core.DATA_PATH + "/spine/line.json", SkeletonData.class);
-        skeleton = new Skeleton(skeletonData);
-        AnimationStateData animationStateData = new AnimationStateData(skeletonData);
-        animationStateData.setDefaultMix(.25f);
-        animationState = new AnimationState(animationStateData);
-        animationState.setAnimation(0, "animation", true);
-
-        skeletonBounds = new SkeletonBounds();
-        skeletonBounds.update(skeleton, true);
+        getAnimationState().setAnimation(0, getCore().getPrefabs().getMissile().getAnimation(), true);
         scored = false;
         
         this.originX = originX;
@@ -87,31 +89,36 @@ public class MissileEntity extends Entity implements Bboxable {
         destroyable = true;
     }
 
+    @Override
+    public void reset() {
+        getAnimationState().clearTracks();
+        getSkeleton().setToSetupPose();
+        getSkeleton().setColor(Color.WHITE);
+        textureRegion = null;
+        textureName = null;
+        team = null;
+        destroyable = true;
+        scored = false;
+    }
+
+    @Override
+    protected void recycle() {
+        world.getMissilePool().free(this);
+    }
+
     @Override
     public void create() {
     }
 
     @Override
     public void act(float delta) {
-        skeleton.setPosition(getX(), getY());
-        animationState.update(delta);
-        skeleton.updateWorldTransform();
-        animationState.apply(skeleton);
-        skeletonBounds.update(skeleton, true);
-        
-        temp1.set(originX, originY);
-        temp1.sub(getX(), getY());
-        
-        skeleton.findBone("line").setRotation(temp1.angle());
-        skeleton.findBone("line").setScaleX(temp1.len());
+        updateLine();
         
         moveTowardsPoint(targetX, targetY, missileSpeed, delta);
         if (MathUtils.isEqual(getX(), targetX) && MathUtils.isEqual(getY(), targetY)) {
             dispose();
-            ExplosionEntity exp = new ExplosionEntity(gameState);
-            exp.setPosition(getX(), getY());
-            exp.setTeam(team);
-            gameState.playExplosionSound();
+            world.spawnExplosion(getX(), getY(), team);
+            world.playSound(Sound.EXPLOSION);
         }
     }
 
@@ -122,7 +129,7 @@ public class MissileEntity extends Entity implements Bboxable {
 
     @Override
     public void draw(SpriteBatch spriteBatch, float delta) {
-        getCore().getSkeletonRenderer().draw(spriteBatch, skeleton);
+        getCore().getSkeletonRenderer().draw(spriteBatch, getSkeleton());
         spriteBatch.draw(textureRegion, getX() - textureRegion.getRegionWidth() / 2.0f, getY() - textureRegion.getRegionHeight() / 2.0f, textureRegion.getRegionWidth() / 2.0f, textureRegion.getRegionHeight() / 2.0f, textureRegion.getRegionWidth(), textureRegion.getRegionHeight(), 1.0f, 1.0f, getRotation());
     }
 
@@ -134,10 +141,24 @@ public class MissileEntity extends Entity implements Bboxable {
     public void collision(Entity other) {
     }
     
+    /**
+     * Stretches the trail from the origin to the current position.
+     */
+    public void updateLine() {
+        Vector2 temp1 = world.getTemp1();
+        temp1.set(originX, originY);
+        temp1.sub(getX(), getY());
+        
+        lineBone.setRotation(temp1.angle());
+        lineBone.setScaleX(temp1.len());
+    }
+    
     public void moveTowardsPoint(float x, float y, float speed, float delta) {
         float originalX = getX();
         float originalY = getY();
         
+        Vector2 temp1 = world.getTemp1();
+        Vector2 temp2 = world.getTemp2();
         temp1.set(getX(), getY());
         temp2.set(x, y);
         temp2.sub(temp1).nor();
@@ -161,12 +182,70 @@ public class MissileEntity extends Entity implements Bboxable {
         }
     }
 
+    /**
+     * The texture is written as its index in the vegetables pack, or -1 when
+     * running without an atlas.
+     */
+    @Override
+    public void writeState(ByteBuffer buffer) {
+        super.writeState(buffer);
+        buffer.putFloat(originX);
+        buffer.putFloat(originY);
+        buffer.putFloat(targetX);
+        buffer.putFloat(targetY);
+        buffer.putFloat(missileSpeed);
+        buffer.put((byte) (destroyable ? 1 : 0));
+        buffer.put((byte) (scored ? 1 : 0));
+        buffer.put((byte) (team == null ? -1 : team.ordinal()));
+        int textureIndex = -1;
+        if (textureName != null) {
+            textureIndex = getCore().getImagePacks().get(Core.DATA_PATH + "/vegetables").indexOf(textureName, true);
+        }
+        buffer.putShort((short) textureIndex);
+    }
+
+    /**
+     * Expects an entity freshly obtained from the missile pool and spawned.
+     * The collision layer comes from the entity state, so the team and
+     * destroyable flag are set without recomputing it.
+     */
+    @Override
+    public void readState(ByteBuffer buffer) {
+        super.readState(buffer);
+        originX = buffer.getFloat();
+        originY = buffer.getFloat();
+        targetX = buffer.getFloat();
+        targetY = buffer.getFloat();
+        missileSpeed = buffer.getFloat();
+        destroyable = buffer.get() != 0;
+        scored = buffer.get() != 0;
+        team = Team.get(buffer.get());
+        int textureIndex = buffer.getShort();
+        if (textureIndex != -1 && getCore().getAtlas() != null) {
+            textureName = getCore().getImagePacks().get(Core.DATA_PATH + "/vegetables").get(textureIndex);
+            textureRegion = getCore().getAtlas().findRegion(textureName);
+        }
+    }
+
+    public float getTargetX() {
+        return targetX;
+    }
+
+    public float getTargetY() {
+        return targetY;
+    }
+
+    public float getMissileSpeed() {
+        return missileSpeed;
+    }
+
     public Team getTeam() {
         return team;
     }
 
     public void setTeam(Team team) {
         this.team = team;
+        updateCollisionLayer();
     }
 
     public boolean isDestroyable() {
@@ -175,17 +254,18 @@ public class MissileEntity extends Entity implements Bboxable {
 
     public void setDestroyable(boolean destroyable) {
         this.destroyable = destroyable;
+        updateCollisionLayer();
     }
-
-    public SkeletonBounds getSkeletonBounds() {
-        return skeletonBounds;
+    
+    private void updateCollisionLayer() {
+        setCollisionLayer(destroyable && team != null ? team.getLayer() : NO_LAYER);
     }
 
     public Color getColor() {
-        return skeleton.getColor();
+        return getSkeleton().getColor();
     }
 
     public void setColor(Color color) {
-        skeleton.setColor(color);
+        getSkeleton().setColor(color);
     }
 }
@@ -24,48 +24,40 @@
 
 package com.ray3k.vegetablecommand.entities;
 
-import com.badlogic.gdx.Gdx;
+import com.badlogic.ashley.utils.ImmutableArray;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Array;
-import com.esotericsoftware.spine.AnimationState;
-import com.esotericsoftware.spine.AnimationStateData;
-import com.esotericsoftware.spine.Skeleton;
-import com.esotericsoftware.spine.SkeletonBounds;
-import com.esotericsoftware.spine.SkeletonData;
-import com.ray3k.vegetablecommand.Core;
 import com.ray3k.vegetablecommand.Entity;
-import com.ray3k.vegetablecommand.states.GameState;
-import com.ray3k.vegetablecommand.states.GameState.Team;
+import com.ray3k.vegetablecommand.GameWorld;
+import com.ray3k.vegetablecommand.GameWorld.Team;
+import com.ray3k.vegetablecommand.RandomService.Stream;
+import com.ray3k.vegetablecommand.SkeletonEntity;
+import com.ray3k.vegetablecommand.SkeletonPrefab;
+import java.nio.ByteBuffer;
 
-public class PlaneEntity extends Entity implements Bboxable {
-    private Skeleton skeleton;
-    private AnimationState animationState;
-    private SkeletonBounds skeletonBounds;
-    private GameState gameState;
+public class PlaneEntity extends SkeletonEntity implements Bboxable {
+    private GameWorld world;
     private float missileTimer;
     private static final float MISSILE_TIME = 3.0f;
     private Team team;
-    private static final Vector2 temp = new Vector2();
+    private final Array<Entity> targets;
     
-    public PlaneEntity(GameState gameState) {
-        super(gameState.getEntityManager(), gameState.getCore());
-        this.gameState = gameState;
-        SkeletonData skeletonData = getCore().getAssetManager().get(Core.DATA_PATH + "/spine/plane.json", SkeletonData.class);
-        skeleton = new Skeleton(skeletonData);
-        skeleton.setColor(Color.RED);
-        AnimationStateData animationStateData = new AnimationStateData(skeletonData);
-        animationStateData.setDefaultMix(.25f);
-        animationState = new AnimationState(animationStateData);
-        animationState.setAnimation(0, "animation", true);
+    public PlaneEntity(GameWorld world) {
+        super(world.getEntityManager(), world.getCore());
+        this.world = world;
+        targets = new Array<Entity>();
+        SkeletonPrefab prefab = getCore().getPrefabs().getPlane();
+        createSkeleton(prefab);
+        getSkeleton().setColor(Color.RED);
+        getAnimationState().setAnimation(0, prefab.getAnimation(), true);
         
-        skeletonBounds = new SkeletonBounds();
-        skeletonBounds.update(skeleton, true);
         setMotion(100.0f, 0.0f);
         
         missileTimer = MISSILE_TIME;
         team = Team.ENEMY;
+        setCollisionLayer(team.getLayer());
     }
 
     @Override
@@ -74,40 +66,41 @@ public class PlaneEntity extends Entity implements Bboxable {
 
     @Override
     public void act(float delta) {
-        skeleton.setPosition(getX(), getY());
-        animationState.update(delta);
-        skeleton.updateWorldTransform();
-        animationState.apply(skeleton);
-        skeletonBounds.update(skeleton, true);
-        
         missileTimer -= delta;
         if (missileTimer < 0) {
             missileTimer = MISSILE_TIME;
             
-            Array<Entity> targets = new Array<Entity>();
-            for (Entity entity : gameState.getEntityManager().getEntities()) {
-                if (entity instanceof CityEntity || entity instanceof TurretEntity) {
-                    targets.add(entity);
-                }
-            }
-            Entity target = targets.random();
+            addTargets(getManager().getFamily(CityEntity.class));
+            addTargets(getManager().getFamily(TurretEntity.class));
+            Entity target = world.getRandom().random(Stream.TARGETING, targets);
+            targets.clear();
             
             if (target != null) {
-                MissileEntity missile = new MissileEntity(gameState, getX(), getY(), target.getX(), target.getY(), gameState.getEnemyController().getMissileSpeed());
-                missile.setTeam(GameState.Team.ENEMY);
+                MissileEntity missile = world.spawnMissile(getX(), getY(), target.getX(), target.getY(), world.getEnemyController().getMissileSpeed());
+                missile.setTeam(Team.ENEMY);
                 missile.setColor(Color.RED);
                 
+                Vector2 temp = world.getTemp1();
                 temp.set(target.getX(), target.getY());
                 temp.sub(missile.getX(), missile.getY());
                 missile.setRotation(temp.angle());
             }
         }
         
-        if (getX() > Gdx.graphics.getWidth()) {
+        if (getX() > world.getWorldWidth()) {
             dispose();
         }
     }
 
+    private void addTargets(ImmutableArray<? extends Entity> family) {
+        for (int i = 0; i < family.size(); i++) {
+            Entity entity = family.get(i);
+            if (!entity.isDestroyed()) {
+                targets.add(entity);
+            }
+        }
+    }
+
     @Override
     public void act_end(float delta) {
         
@@ -115,7 +108,7 @@ public class PlaneEntity extends Entity implements Bboxable {
 
     @Override
     public void draw(SpriteBatch spriteBatch, float delta) {
-        getCore().getSkeletonRenderer().draw(spriteBatch, skeleton);
+        getCore().getSkeletonRenderer().draw(spriteBatch, getSkeleton());
     }
 
     @Override
@@ -127,8 +120,15 @@ public class PlaneEntity extends Entity implements Bboxable {
     }
 
     @Override
-    public SkeletonBounds getSkeletonBounds() {
-        return skeletonBounds;
+    public void writeState(ByteBuffer buffer) {
+        super.writeState(buffer);
+        buffer.putFloat(missileTimer);
+    }
+
+    @Override
+    public void readState(ByteBuffer buffer) {
+        super.readState(buffer);
+        missileTimer = buffer.getFloat();
     }
 
     @Override
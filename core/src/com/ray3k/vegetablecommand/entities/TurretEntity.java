@@ -24,49 +24,37 @@
 
 package com.ray3k.vegetablecommand.entities;
 
-import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.math.Vector2;
-import com.badlogic.gdx.scenes.scene2d.ui.Label;
-import com.badlogic.gdx.utils.Align;
-import com.esotericsoftware.spine.AnimationState;
-import com.esotericsoftware.spine.AnimationStateData;
-import com.esotericsoftware.spine.Skeleton;
-import com.esotericsoftware.spine.SkeletonBounds;
-import com.esotericsoftware.spine.SkeletonData;
-import com.esotericsoftware.spine.attachments.PointAttachment;
-import com.ray3k.vegetablecommand.Core;
+import com.esotericsoftware.spine.Bone;
 import com.ray3k.vegetablecommand.Entity;
-import com.ray3k.vegetablecommand.states.GameState;
-import com.ray3k.vegetablecommand.states.GameState.Team;
-
-public class TurretEntity extends Entity implements Bboxable {
-    private Skeleton skeleton;
-    private AnimationState animationState;
-    private SkeletonBounds skeletonBounds;
-    private GameState gameState;
-    private static final Vector2 temp = new Vector2();
-    private static final float MISSILE_SPEED = 700.0f;
+import com.ray3k.vegetablecommand.GameWorld;
+import com.ray3k.vegetablecommand.GameWorld.Sound;
+import com.ray3k.vegetablecommand.GameWorld.Team;
+import com.ray3k.vegetablecommand.SkeletonEntity;
+import com.ray3k.vegetablecommand.SkeletonPrefab;
+import com.ray3k.vegetablecommand.TickInput;
+import java.nio.ByteBuffer;
+
+public class TurretEntity extends SkeletonEntity implements Bboxable {
+    private GameWorld world;
+    public static final float MISSILE_SPEED = 700.0f;
     private Team team;
-    private Label label;
     private int missileCount;
+    private int owner;
+    private final Bone turretBone;
     
-    public TurretEntity(GameState gameState) {
-        super(gameState.getEntityManager(), gameState.getCore());
-        this.gameState = gameState;
-        SkeletonData skeletonData = getCore().getAssetManager().get(Core.DATA_PATH + "/spine/base.json", SkeletonData.class);
-        skeleton = new Skeleton(skeletonData);
-        AnimationStateData animationStateData = new AnimationStateData(skeletonData);
-        animationStateData.setDefaultMix(.25f);
-        animationState = new AnimationState(animationStateData);
-        animationState.setAnimation(0, "animation", true);
+    public TurretEntity(GameWorld world) {
+        super(world.getEntityManager(), world.getCore());
+        this.world = world;
+        SkeletonPrefab prefab = getCore().getPrefabs().getTurret();
+        createSkeleton(prefab);
+        getAnimationState().setAnimation(0, prefab.getAnimation(), true);
+        turretBone = getSkeleton().getBones().get(getCore().getPrefabs().getTurretBone());
+        addOverrideBone(getCore().getPrefabs().getTurretBone());
         
-        skeletonBounds = new SkeletonBounds();
-        skeletonBounds.update(skeleton, true);
         team = Team.PLAYER;
-        
-        label = new Label("30", gameState.getSkin());
-        gameState.getStage().addActor(label);
+        setCollisionLayer(team.getLayer());
     }
 
     @Override
@@ -75,20 +63,14 @@ public class TurretEntity extends Entity implements Bboxable {
 
     @Override
     public void act(float delta) {
-        temp.set(Gdx.input.getX(), Gdx.graphics.getHeight() - Gdx.input.getY());
+        TickInput input = world.getTickInput(owner);
+        Vector2 temp = world.getTemp1();
+        temp.set(input.getPointerX(), input.getPointerY());
         temp.sub(getX(), getY());
         
         if (temp.angle() >= 5.0f && temp.angle() < 175.0f) {
-            skeleton.findBone("turret").setRotation(temp.angle());
+            setAim(temp.angle());
         }
-        
-        skeleton.setPosition(getX(), getY());
-        animationState.update(delta);
-        skeleton.updateWorldTransform();
-        animationState.apply(skeleton);
-        skeletonBounds.update(skeleton, true);
-        
-        label.setPosition(getX(), getY() - 25, Align.center);
     }
 
     @Override
@@ -98,17 +80,17 @@ public class TurretEntity extends Entity implements Bboxable {
 
     @Override
     public void draw(SpriteBatch spriteBatch, float delta) {
-        getCore().getSkeletonRenderer().draw(spriteBatch, skeleton);
+        getCore().getSkeletonRenderer().draw(spriteBatch, getSkeleton());
     }
 
     @Override
     public void destroy() {
-        gameState.getTurrets().removeValue(this, true);
-        if (gameState.getTurrets().size == 0) {
-            new GameOverTimerEntity(gameState, 2.0f);
+        world.getTurrets().removeValue(this, true);
+        if (world.getTurrets().size == 0) {
+            new GameOverTimerEntity(world, 2.0f);
         }
         
-        gameState.getStage().getActors().removeValue(label, true);
+        world.turretDestroyed(this);
     }
 
     @Override
@@ -117,38 +99,77 @@ public class TurretEntity extends Entity implements Bboxable {
     
     public void fire() {
         if (missileCount > 0) {
-            temp.set(Gdx.input.getX(), Gdx.graphics.getHeight() - Gdx.input.getY());
+            TickInput input = world.getTickInput(owner);
+            Vector2 temp = world.getTemp1();
+            temp.set(input.getPointerX(), input.getPointerY());
             temp.sub(getX(), getY());
             float angle = temp.angle();
 
-            PointAttachment point = (PointAttachment) skeleton.getAttachment("muzzle", "muzzle");
-            point.computeWorldPosition(skeleton.findBone("turret"), temp);
-            MissileEntity missile = new MissileEntity(gameState, temp.x, temp.y, Gdx.input.getX(), Gdx.graphics.getHeight() - Gdx.input.getY(), MISSILE_SPEED);
+            getMuzzlePosition(temp);
+            MissileEntity missile = world.spawnMissile(temp.x, temp.y, input.getPointerX(), input.getPointerY(), MISSILE_SPEED);
             missile.setRotation(angle);
-            missile.setTeam(GameState.Team.PLAYER);
+            missile.setTeam(Team.PLAYER);
             missile.setDestroyable(false);
-            gameState.playMissileSound();
+            world.playSound(Sound.MISSILE);
             missileCount--;
-            label.setText(Integer.toString(missileCount));
+            world.missileCountChanged(this);
         }
     }
 
+    /**
+     * Stores the world position missiles are fired from, as of the last pose.
+     */
+    public Vector2 getMuzzlePosition(Vector2 position) {
+        return getCore().getPrefabs().getMuzzle().computeWorldPosition(turretBone, position);
+    }
+
+    @Override
+    public void writeState(ByteBuffer buffer) {
+        super.writeState(buffer);
+        buffer.putInt(missileCount);
+        buffer.put((byte) owner);
+    }
+
     @Override
-    public SkeletonBounds getSkeletonBounds() {
-        return skeletonBounds;
+    public void readState(ByteBuffer buffer) {
+        super.readState(buffer);
+        setMissileCount(buffer.getInt());
+        owner = buffer.get();
     }
 
     @Override
-    public GameState.Team getTeam() {
+    public Team getTeam() {
         return team;
     }
 
+    public float getAim() {
+        return turretBone.getRotation();
+    }
+
+    /**
+     * Rotates the barrel to the given angle in degrees.
+     */
+    public void setAim(float aim) {
+        turretBone.setRotation(aim);
+    }
+
+    /**
+     * Index of the player controlling this turret.
+     */
+    public int getOwner() {
+        return owner;
+    }
+
+    public void setOwner(int owner) {
+        this.owner = owner;
+    }
+
     public int getMissileCount() {
         return missileCount;
     }
 
     public void setMissileCount(int missileCount) {
         this.missileCount = missileCount;
-        label.setText(Integer.toString(missileCount));
+        world.missileCountChanged(this);
     }
 }
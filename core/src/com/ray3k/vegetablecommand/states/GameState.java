@@ -24,31 +24,37 @@
 package com.ray3k.vegetablecommand.states;
 
 import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.Input.Buttons;
+import com.badlogic.gdx.Input.Keys;
 import com.badlogic.gdx.InputMultiplexer;
 import com.badlogic.gdx.audio.Sound;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.OrthographicCamera;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.scenes.scene2d.Stage;
 import com.badlogic.gdx.scenes.scene2d.ui.Label;
 import com.badlogic.gdx.scenes.scene2d.ui.Skin;
 import com.badlogic.gdx.scenes.scene2d.ui.Table;
-import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Align;
+import com.badlogic.gdx.utils.ObjectMap;
 import com.badlogic.gdx.utils.viewport.ScreenViewport;
 import com.badlogic.gdx.utils.viewport.Viewport;
 import com.ray3k.vegetablecommand.Core;
-import com.ray3k.vegetablecommand.EntityManager;
+import com.ray3k.vegetablecommand.GameListener;
+import com.ray3k.vegetablecommand.GameWorld;
 import com.ray3k.vegetablecommand.InputManager;
+import com.ray3k.vegetablecommand.InputRecorder;
+import com.ray3k.vegetablecommand.InputSource;
+import com.ray3k.vegetablecommand.KeyframeRecorder;
+import com.ray3k.vegetablecommand.LiveInputSource;
+import com.ray3k.vegetablecommand.SimulationClock;
 import com.ray3k.vegetablecommand.State;
+import com.ray3k.vegetablecommand.StateStreamRecorder;
 import com.ray3k.vegetablecommand.entities.BackgroundEntity;
-import com.ray3k.vegetablecommand.entities.CityEntity;
-import com.ray3k.vegetablecommand.entities.EnemyControllerEntity;
 import com.ray3k.vegetablecommand.entities.TurretEntity;
 
-public class GameState extends State {
-    private int score;
-    private static int highscore = 0;
+public class GameState extends State implements GameListener {
+    private int highscore;
     private OrthographicCamera gameCamera;
     private Viewport gameViewport;
     private OrthographicCamera uiCamera;
@@ -58,68 +64,109 @@ public class GameState extends State {
     private Stage stage;
     private Table table;
     private Label scoreLabel;
-    private EntityManager entityManager;
-    private Array<TurretEntity> turrets;
-    private Array<CityEntity> cities;
-    private int turretCounter;
-    private boolean fired;
-    private EnemyControllerEntity enemyController;
-    private float difficulty;
-    private static final float DIFFICULTY_INCREMENT = .1f;
-    
-    public static enum Team {
-        PLAYER, ENEMY;
-    }
+    private Label speedLabel;
+    private float shownSpeed;
+    private float shownTicksPerSecond;
+    private final ObjectMap<TurretEntity, Label> turretLabels;
+    private GameWorld world;
+    private boolean headless;
+    private long seed;
+    private boolean fixedSeed;
+    private InputSource inputSource;
     
     public GameState(Core core) {
         super(core);
+        turretLabels = new ObjectMap<TurretEntity, Label>();
     }
     
     @Override
     public void start() {
-        difficulty = 1.0f;
-        fired = false;
-        cities = new Array<CityEntity>();
-        turrets = new Array<TurretEntity>();
-        score = 0;
+        headless = getCore().isHeadless();
+        if (!fixedSeed) {
+            seed = MathUtils.random.nextLong();
+        }
         
         inputManager = new InputManager(); 
         
-        uiCamera = new OrthographicCamera();
-        uiViewport = new ScreenViewport(uiCamera);
-        uiViewport.update(Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
-        uiViewport.apply();
-        
-        uiCamera.position.set(uiCamera.viewportWidth / 2, uiCamera.viewportHeight / 2, 0);
-        
-        gameCamera = new OrthographicCamera();
-        gameViewport = new ScreenViewport(gameCamera);
-        gameViewport.update(Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
-        gameViewport.apply();
-        
-        gameCamera.position.set(gameCamera.viewportWidth / 2, gameCamera.viewportHeight / 2, 0);
-        
-        skin = getCore().getAssetManager().get(Core.DATA_PATH + "/ui/vegetable-command-ui.json", Skin.class);
-        stage = new Stage(new ScreenViewport());
-        
-        InputMultiplexer inputMultiplexer = new InputMultiplexer();
-        inputMultiplexer.addProcessor(inputManager);
-        inputMultiplexer.addProcessor(stage);
-        Gdx.input.setInputProcessor(inputMultiplexer);
-        
-        table = new Table();
-        table.setFillParent(true);
-        stage.addActor(table);
+        if (!headless) {
+            uiCamera = new OrthographicCamera();
+            uiViewport = new ScreenViewport(uiCamera);
+            uiViewport.update(getCore().getWorldWidth(), getCore().getWorldHeight());
+            uiViewport.apply();
+
+            uiCamera.position.set(uiCamera.viewportWidth / 2, uiCamera.viewportHeight / 2, 0);
+
+            gameCamera = new OrthographicCamera();
+            gameViewport = new ScreenViewport(gameCamera);
+            gameViewport.update(getCore().getWorldWidth(), getCore().getWorldHeight());
+            gameViewport.apply();
+
+            gameCamera.position.set(gameCamera.viewportWidth / 2, gameCamera.viewportHeight / 2, 0);
+
+            skin = getCore().getAssetManager().get(Core.DATA_PATH + "/ui/vegetable-command-ui.json", Skin.class);
+            stage = new Stage(new ScreenViewport());
+
+            InputMultiplexer inputMultiplexer = new InputMultiplexer();
+            inputMultiplexer.addProcessor(inputManager);
+            inputMultiplexer.addProcessor(stage);
+            Gdx.input.setInputProcessor(inputMultiplexer);
+            
+            inputManager.addKeyActionListener(new InputManager.KeyActionListener() {
+                @Override
+                public void keyPressed(int key) {
+                    SimulationClock clock = getCore().getClock();
+                    if (key == Keys.LEFT_BRACKET) {
+                        clock.setTimeScale(clock.getTimeScale() / 2.0f);
+                    } else if (key == Keys.RIGHT_BRACKET) {
+                        clock.setTimeScale(clock.getTimeScale() * 2.0f);
+                    } else if (key == Keys.BACKSLASH) {
+                        clock.setTimeScale(1.0f);
+                        clock.setTurbo(false);
+                    } else if (key == Keys.TAB) {
+                        clock.setTurbo(!clock.isTurbo());
+                    }
+                }
+            });
+
+            table = new Table();
+            table.setFillParent(true);
+            stage.addActor(table);
+        }
         
-        entityManager = new EntityManager();
+        world = new GameWorld(getCore(), seed, getCore().getWorldWidth(), getCore().getWorldHeight());
+        world.setListener(this);
+        if (inputSource != null) {
+            world.setInputSource(inputSource);
+        } else if (!headless) {
+            world.setInputSource(new LiveInputSource(world));
+        }
+        if (getCore().getRecordDirectory() != null) {
+            InputRecorder recorder = new InputRecorder();
+            recorder.begin(seed, getCore().getClock().getTickRate(), world.getWorldWidth(), world.getWorldHeight());
+            world.setRecorder(recorder);
+            
+            if (getCore().isRecordingStates()) {
+                StateStreamRecorder stateRecorder = new StateStreamRecorder();
+                stateRecorder.begin(Gdx.files.local(getCore().getRecordDirectory() + "/" + seed + ".vcst"), world, getCore().getClock().getTickRate());
+                world.setStateRecorder(stateRecorder);
+            }
+        }
         
-        createStageElements();
+        if (!headless) {
+            createStageElements();
+
+            BackgroundEntity bgEntity = new BackgroundEntity(world);
+            bgEntity.setPosition(0.0f, 0.0f);
+        }
         
-        BackgroundEntity bgEntity = new BackgroundEntity(this);
-        bgEntity.setPosition(0.0f, 0.0f);
+        world.start();
         
-        spawnPlayer();
-        newLevel();
+        if (getCore().getRecordDirectory() != null && getCore().getKeyframeInterval() > 0) {
+            KeyframeRecorder keyframeRecorder = new KeyframeRecorder();
+            keyframeRecorder.begin(getCore().getKeyframeInterval());
+            keyframeRecorder.record(world);
+            world.setKeyframeRecorder(keyframeRecorder);
+        }
     }
     
     private void createStageElements() {
@@ -129,6 +176,11 @@ public class GameState extends State {
         
         scoreLabel = new Label("0", skin);
         root.add(scoreLabel).expandY().padTop(25.0f).top();
+        
+        speedLabel = new Label("", skin);
+        shownSpeed = 1.0f;
+        root.row();
+        root.add(speedLabel).right().pad(5.0f);
     }
     
     @Override
@@ -139,27 +191,39 @@ public class GameState extends State {
         gameCamera.update();
         spriteBatch.setProjectionMatrix(gameCamera.combined);
         spriteBatch.begin();
-        entityManager.draw(spriteBatch, delta);
+        world.draw(spriteBatch, delta);
         spriteBatch.end();
         
+        updateSpeedLabel();
+        
         stage.draw();
     }
 
+    /**
+     * Shows the speed and achieved tick rate while not running at real time.
+     */
+    private void updateSpeedLabel() {
+        SimulationClock clock = getCore().getClock();
+        float speed = clock.isTurbo() ? -1.0f : clock.getTimeScale();
+        if (speed == shownSpeed && clock.getTicksPerSecond() == shownTicksPerSecond) {
+            return;
+        }
+        
+        shownSpeed = speed;
+        shownTicksPerSecond = clock.getTicksPerSecond();
+        if (speed == 1.0f) {
+            speedLabel.setText("");
+        } else {
+            speedLabel.setText((clock.isTurbo() ? "Turbo" : speed + "x") + "  " + Math.round(shownTicksPerSecond) + " ticks/s");
+        }
+    }
+
     @Override
     public void act(float delta) {
-        entityManager.act(delta);
-        
-        stage.act(delta);
+        world.act(delta);
         
-        if (Gdx.input.isButtonPressed(Buttons.LEFT)) {
-            if (!fired && turrets.size > 0) {
-                turretCounter %= turrets.size;
-                turrets.get(turretCounter).fire();
-                turretCounter++;
-                fired = true;
-            }
-        } else {
-            fired = false;
+        if (!headless) {
+            stage.act(delta);
         }
     }
 
@@ -169,11 +233,20 @@ public class GameState extends State {
 
     @Override
     public void stop() {
-        stage.dispose();
+        finishRecording();
+        turretLabels.clear();
+        if (stage != null) {
+            stage.dispose();
+            stage = null;
+        }
     }
     
     @Override
     public void resize(int width, int height) {
+        if (headless) {
+            return;
+        }
+        
         gameViewport.update(width, height);
         gameCamera.position.set(width / 2, height / 2.0f, 0.0f);
         
@@ -182,44 +255,107 @@ public class GameState extends State {
         stage.getViewport().update(width, height, true);
     }
 
-    public EntityManager getEntityManager() {
-        return entityManager;
+    @Override
+    public void scoreChanged(GameWorld world, int score) {
+        if (scoreLabel != null) {
+            scoreLabel.setText(Integer.toString(score));
+        }
+        if (score > highscore) {
+            highscore = score;
+        }
     }
 
-    public InputManager getInputManager() {
-        return inputManager;
+    @Override
+    public void missileCountChanged(GameWorld world, TurretEntity turret) {
+        if (stage == null) {
+            return;
+        }
+        
+        Label label = turretLabels.get(turret);
+        if (label == null) {
+            label = new Label("", skin);
+            stage.addActor(label);
+            turretLabels.put(turret, label);
+        }
+        label.setText(Integer.toString(turret.getMissileCount()));
+        label.pack();
+        label.setPosition(turret.getX(), turret.getY() - 25, Align.center);
     }
 
-    public int getScore() {
-        return score;
+    @Override
+    public void turretDestroyed(GameWorld world, TurretEntity turret) {
+        Label label = turretLabels.remove(turret);
+        if (label != null) {
+            label.remove();
+        }
     }
 
-    public void setScore(int score) {
-        this.score = score;
-        scoreLabel.setText(Integer.toString(score));
-        if (score > highscore) {
-            highscore = score;
+    @Override
+    public void playSound(GameWorld world, GameWorld.Sound sound) {
+        if (headless) {
+            return;
         }
+        
+        String name;
+        switch (sound) {
+            case CITY:
+                name = "city";
+                break;
+            case MISSILE:
+                name = "missile";
+                break;
+            default:
+                name = "explosion";
+                break;
+        }
+        getCore().getAssetManager().get(Core.DATA_PATH + "/sfx/" + name + ".wav", Sound.class).play(.5f);
     }
-    
-    public void addScore(int score) {
-        this.score += score;
-        scoreLabel.setText(Integer.toString(this.score));
-        if (this.score > highscore) {
-            highscore = this.score;
+
+    /**
+     * Ends the session. Shows the game over screen unless running headless,
+     * where the session is only flagged so the driver can collect the result.
+     */
+    @Override
+    public void gameOver(GameWorld world) {
+        finishRecording();
+        if (!headless) {
+            ((GameOverState) getCore().getStateManager().getState("game-over")).setScore(world.getScore());
+            getCore().getStateManager().loadState("game-over");
         }
     }
-    
-    public void playExplosionSound() {
-        getCore().getAssetManager().get(Core.DATA_PATH + "/sfx/explosion.wav", Sound.class).play(.5f);
+
+    private void finishRecording() {
+        InputRecorder recorder = world == null ? null : world.getRecorder();
+        if (recorder != null) {
+            recorder.end();
+            recorder.save(Gdx.files.local(getCore().getRecordDirectory() + "/" + seed + ".vcin"));
+            world.setRecorder(null);
+        }
+        
+        StateStreamRecorder stateRecorder = world == null ? null : world.getStateRecorder();
+        if (stateRecorder != null) {
+            stateRecorder.end();
+            world.setStateRecorder(null);
+        }
+        
+        KeyframeRecorder keyframeRecorder = world == null ? null : world.getKeyframeRecorder();
+        if (keyframeRecorder != null) {
+            keyframeRecorder.end();
+            keyframeRecorder.save(Gdx.files.local(getCore().getRecordDirectory() + "/" + seed + ".vckf"));
+            world.setKeyframeRecorder(null);
+        }
     }
-    
-    public void playCitySound() {
-        getCore().getAssetManager().get(Core.DATA_PATH + "/sfx/city.wav", Sound.class).play(.5f);
+
+    public GameWorld getWorld() {
+        return world;
     }
-    
-    public void playMissileSound() {
-        getCore().getAssetManager().get(Core.DATA_PATH + "/sfx/missile.wav", Sound.class).play(.5f);
+
+    public InputManager getInputManager() {
+        return inputManager;
+    }
+
+    public int getHighscore() {
+        return highscore;
     }
 
     public OrthographicCamera getGameCamera() {
@@ -229,42 +365,33 @@ public class GameState extends State {
     public void setGameCamera(OrthographicCamera gameCamera) {
         this.gameCamera = gameCamera;
     }
-    
-    public void spawnPlayer() {
-        float border = 40.0f;
-        
-        boolean spawnCity = true;
-        
-        for (int i = 0; i < 7; i++) {
-            float x = border + i * (Gdx.graphics.getWidth() - border * 2) / 6;
-            if (spawnCity) {
-                CityEntity city = new CityEntity(this);
-                city.setPosition(x, 110.0f);
-                cities.add(city);
-            } else {
-                TurretEntity turret = new TurretEntity(this);
-                turret.setPosition(x, 110.0f);
-                turrets.add(turret);
-            }
-            spawnCity = !spawnCity;
-        }
-    }
 
-    public Array<TurretEntity> getTurrets() {
-        return turrets;
+    public long getSeed() {
+        return seed;
     }
 
-    public Array<CityEntity> getCities() {
-        return cities;
+    /**
+     * Fixes the seed used by every following session so runs can be
+     * reproduced.
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+        fixedSeed = true;
+    }
+    
+    public void clearSeed() {
+        fixedSeed = false;
     }
 
-    public EnemyControllerEntity getEnemyController() {
-        return enemyController;
+    public InputSource getInputSource() {
+        return inputSource;
     }
-    
-    public void newLevel() {
-        enemyController = new EnemyControllerEntity(this, difficulty);
-        difficulty += DIFFICULTY_INCREMENT;
+
+    /**
+     * Replaces the live mouse as the input of every following session.
+     */
+    public void setInputSource(InputSource inputSource) {
+        this.inputSource = inputSource;
     }
 
     public Skin getSkin() {
@@ -274,4 +401,4 @@ public class GameState extends State {
     public Stage getStage() {
         return stage;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,153 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.vegetablecommand.states;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input.Keys;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.scenes.scene2d.Stage;
+import com.badlogic.gdx.scenes.scene2d.ui.Label;
+import com.badlogic.gdx.scenes.scene2d.ui.Skin;
+import com.badlogic.gdx.scenes.scene2d.ui.Table;
+import com.badlogic.gdx.utils.viewport.ScreenViewport;
+import com.badlogic.gdx.utils.viewport.Viewport;
+import com.ray3k.vegetablecommand.Core;
+import com.ray3k.vegetablecommand.State;
+import com.ray3k.vegetablecommand.StateStreamPlayer;
+
+/**
+ * Replays a recorded state stream one frame per render and times the draw.
+ */
+public class PlaybackState extends State {
+    private OrthographicCamera camera;
+    private Viewport viewport;
+    private Stage stage;
+    private Label label;
+    private StateStreamPlayer player;
+    private int pass;
+    private int frames;
+    private long drawNanos;
+    private long maxDrawNanos;
+
+    public PlaybackState(Core core) {
+        super(core);
+    }
+
+    @Override
+    public void start() {
+        camera = new OrthographicCamera();
+        viewport = new ScreenViewport(camera);
+        viewport.update(Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
+        camera.position.set(camera.viewportWidth / 2, camera.viewportHeight / 2, 0);
+        
+        player = new StateStreamPlayer(getCore(), Gdx.files.local(getCore().getPlaybackFile()));
+        pass = 1;
+        resetTimings();
+        
+        Skin skin = getCore().getAssetManager().get(Core.DATA_PATH + "/ui/vegetable-command-ui.json", Skin.class);
+        stage = new Stage(new ScreenViewport());
+        Table table = new Table();
+        table.setFillParent(true);
+        table.top().left().pad(10.0f);
+        stage.addActor(table);
+        label = new Label("", skin);
+        table.add(label);
+    }
+
+    @Override
+    public void draw(SpriteBatch spriteBatch, float delta) {
+        if (!player.step()) {
+            report();
+            player.rewind();
+            pass++;
+            resetTimings();
+            player.step();
+        }
+        
+        Gdx.gl.glClearColor(0.0f, 0.0f, 0.0f, 1);
+        Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
+        
+        camera.update();
+        spriteBatch.setProjectionMatrix(camera.combined);
+        long start = System.nanoTime();
+        spriteBatch.begin();
+        player.draw(spriteBatch);
+        spriteBatch.end();
+        Gdx.gl.glFinish();
+        long elapsed = System.nanoTime() - start;
+        
+        frames++;
+        drawNanos += elapsed;
+        maxDrawNanos = Math.max(maxDrawNanos, elapsed);
+        label.setText("Pass " + pass + "  frame " + player.getFrame() + "  entities " + player.getWorld().getEntityManager().getEntityCount() + "  draw " + elapsed / 1000 + " us");
+        stage.draw();
+    }
+    
+    private void resetTimings() {
+        frames = 0;
+        drawNanos = 0;
+        maxDrawNanos = 0;
+    }
+    
+    private void report() {
+        if (frames == 0) {
+            return;
+        }
+        
+        System.out.println("Playback:     " + getCore().getPlaybackFile() + " pass " + pass);
+        System.out.println("Frames:       " + frames);
+        System.out.println("Mean draw:    " + drawNanos / frames / 1000000.0f + "ms");
+        System.out.println("Max draw:     " + maxDrawNanos / 1000000.0f + "ms");
+    }
+
+    @Override
+    public void act(float delta) {
+        stage.act(delta);
+        
+        if (Gdx.input.isKeyJustPressed(Keys.ESCAPE)) {
+            report();
+            getCore().getStateManager().loadState("menu");
+        }
+    }
+
+    @Override
+    public void stop() {
+        stage.dispose();
+        player = null;
+    }
+
+    @Override
+    public void dispose() {
+    }
+
+    @Override
+    public void resize(int width, int height) {
+        viewport.update(width, height);
+        camera.position.set(width / 2, height / 2.0f, 0.0f);
+        stage.getViewport().update(width, height, true);
+    }
+}
@@ -11,6 +11,12 @@ public class DesktopLauncher {
         config.width = 800;
         config.height = 700;
         config.samples = 3;
-        new LwjglApplication(new Core(), config);
+        Core core = new Core();
+        if (arg.length > 0 && arg[0].equals("--record")) {
+            core.setRecordDirectory(arg.length > 1 ? arg[1] : "replays");
+        } else if (arg.length > 1 && arg[0].equals("--playback")) {
+            core.setPlaybackFile(arg[1]);
+        }
+        new LwjglApplication(core, config);
     }
 }
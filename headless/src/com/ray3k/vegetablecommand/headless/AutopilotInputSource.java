@@ -0,0 +1,68 @@
+package com.ray3k.vegetablecommand.headless;
+
+import com.badlogic.ashley.utils.ImmutableArray;
+import com.ray3k.vegetablecommand.GameWorld;
+import com.ray3k.vegetablecommand.GameWorld.Team;
+import com.ray3k.vegetablecommand.InputSource;
+import com.ray3k.vegetablecommand.TickInput;
+import com.ray3k.vegetablecommand.entities.MissileEntity;
+
+/**
+ * Deterministic player for batch runs that leads the lowest enemy missile.
+ */
+public class AutopilotInputSource implements InputSource {
+    public static final int DEFAULT_FIRE_INTERVAL = 30;
+    private static final float PLAYER_MISSILE_SPEED = 700.0f;
+    private final GameWorld world;
+    private final int fireInterval;
+    private int cooldown;
+
+    public AutopilotInputSource(GameWorld world) {
+        this(world, DEFAULT_FIRE_INTERVAL);
+    }
+    
+    /**
+     * @param fireInterval ticks between shots.
+     */
+    public AutopilotInputSource(GameWorld world, int fireInterval) {
+        this.world = world;
+        this.fireInterval = fireInterval;
+    }
+
+    @Override
+    public void poll(TickInput input) {
+        if (cooldown > 0) {
+            cooldown--;
+            input.setFiring(false);
+            return;
+        }
+        
+        MissileEntity target = null;
+        ImmutableArray<MissileEntity> missiles = world.getEntityManager().getFamily(MissileEntity.class);
+        for (int i = 0; i < missiles.size(); i++) {
+            MissileEntity missile = missiles.get(i);
+            if (!missile.isDestroyed() && missile.getTeam() == Team.ENEMY && missile.isDestroyable()) {
+                if (target == null || missile.getY() < target.getY()) {
+                    target = missile;
+                }
+            }
+        }
+        
+        if (target == null) {
+            input.setFiring(false);
+            return;
+        }
+        
+        float dx = target.getTargetX() - target.getX();
+        float dy = target.getTargetY() - target.getY();
+        float length = (float) Math.sqrt(dx * dx + dy * dy);
+        float lead = 0.0f;
+        if (length > 0.0f) {
+            float time = target.getY() / PLAYER_MISSILE_SPEED;
+            lead = Math.min(length, target.getMissileSpeed() * time) / length;
+        }
+        
+        input.set(true, Math.round(target.getX() + dx * lead), Math.round(target.getY() + dy * lead));
+        cooldown = fireInterval;
+    }
+}
@@ -0,0 +1,32 @@
+package com.ray3k.vegetablecommand.headless;
+
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.utils.Array;
+import com.ray3k.vegetablecommand.GameWorld;
+
+/**
+ * Runs a batch of headless sessions with consecutive seeds.
+ * Usage: BatchLauncher [sessions] [threads] [base seed] [max game minutes] [start:increment ...]
+ */
+public class BatchLauncher {
+
+    public static void main(String[] arg) {
+        int sessions = arg.length > 0 ? Integer.parseInt(arg[0]) : 100;
+        int threads = arg.length > 1 ? Integer.parseInt(arg[1]) : Runtime.getRuntime().availableProcessors();
+        long baseSeed = arg.length > 2 ? Long.parseLong(arg[2]) : 0L;
+        float minutes = arg.length > 3 ? Float.parseFloat(arg[3]) : 60.0f;
+        
+        Array<DifficultyCurve> curves = new Array<DifficultyCurve>();
+        for (int i = 4; i < arg.length; i++) {
+            curves.add(DifficultyCurve.parse(arg[i]));
+        }
+        if (curves.size == 0) {
+            curves.add(new DifficultyCurve(GameWorld.DEFAULT_DIFFICULTY, GameWorld.DEFAULT_DIFFICULTY_INCREMENT));
+        }
+        
+        HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+        config.renderInterval = 0.0f;
+        new HeadlessApplication(new BatchRunner(800, 700, sessions, threads, baseSeed, minutes * 60.0f, curves), config);
+    }
+}
@@ -0,0 +1,183 @@
+package com.ray3k.vegetablecommand.headless;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.Array;
+import com.ray3k.vegetablecommand.Core;
+import com.ray3k.vegetablecommand.GameWorld;
+import com.ray3k.vegetablecommand.PoseUpdater;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Headless {@link Core} that plays many {@link GameWorld} sessions on a thread pool.
+ */
+public class BatchRunner extends Core {
+    private final int sessions;
+    private final int threads;
+    private final long baseSeed;
+    private final float maxSeconds;
+    private final Array<DifficultyCurve> curves;
+    private final Array<SessionResult> results;
+    private int failures;
+    private long startTime;
+    private long endTime;
+
+    public BatchRunner(int worldWidth, int worldHeight, int sessions, int threads, long baseSeed, float maxSeconds, Array<DifficultyCurve> curves) {
+        super(true, worldWidth, worldHeight);
+        this.sessions = sessions;
+        this.threads = threads;
+        this.baseSeed = baseSeed;
+        this.maxSeconds = maxSeconds;
+        this.curves = curves;
+        results = new Array<SessionResult>();
+    }
+
+    @Override
+    public void create() {
+        try {
+            initManagers();
+            loadAssets();
+            getAssetManager().finishLoading();
+            
+            run();
+            report();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            Gdx.app.exit();
+        }
+    }
+
+    @Override
+    public void render() {
+    }
+    
+    private void run() throws InterruptedException {
+        startTime = System.nanoTime();
+        // Virtual threads need Java 21 and the project targets Java 7, so sessions share a fixed pool of platform threads.
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<SessionResult>> futures = new ArrayList<Future<SessionResult>>(sessions);
+        try {
+            for (int i = 0; i < sessions; i++) {
+                final long seed = baseSeed + i;
+                final DifficultyCurve curve = curves.get(i % curves.size);
+                futures.add(executor.submit(new Callable<SessionResult>() {
+                    @Override
+                    public SessionResult call() {
+                        return runSession(seed, curve);
+                    }
+                }));
+            }
+            
+            for (Future<SessionResult> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    failures++;
+                    e.getCause().printStackTrace();
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        endTime = System.nanoTime();
+    }
+    
+    /**
+     * Plays one session to game over or the time limit. Runs on a pool
+     * thread, so the world updates its poses inline instead of fanning out
+     * to the shared fork join pool.
+     */
+    private SessionResult runSession(long seed, DifficultyCurve curve) {
+        SessionResult result = new SessionResult(seed, curve);
+        GameWorld world = new GameWorld(this, seed, getWorldWidth(), getWorldHeight());
+        world.getEntityManager().setPoseUpdater(new PoseUpdater(null, PoseUpdater.DEFAULT_CHUNK_SIZE));
+        curve.apply(world);
+        world.setInputSource(new AutopilotInputSource(world));
+        world.start();
+        
+        float delta = getClock().getTickDelta();
+        long maxTicks = (long) Math.ceil(maxSeconds * getClock().getTickRate());
+        long ticks = 0;
+        int peakEntities = 0;
+        while (!world.isGameOver() && ticks < maxTicks) {
+            long tickStart = System.nanoTime();
+            world.act(delta);
+            result.getTickTimes().record(System.nanoTime() - tickStart);
+            ticks++;
+            peakEntities = Math.max(peakEntities, world.getEntityManager().getEntityCount());
+        }
+        
+        result.setScore(world.getScore());
+        result.setWavesSurvived(world.getLevel() - 1);
+        result.setTicks(ticks);
+        result.setPeakEntities(peakEntities);
+        result.setGameOver(world.isGameOver());
+        return result;
+    }
+    
+    private void report() {
+        TickHistogram tickTimes = new TickHistogram();
+        long ticks = 0;
+        int peakEntities = 0;
+        for (SessionResult result : results) {
+            tickTimes.add(result.getTickTimes());
+            ticks += result.getTicks();
+            peakEntities = Math.max(peakEntities, result.getPeakEntities());
+        }
+        
+        float gameSeconds = ticks * getClock().getTickDelta();
+        float wallSeconds = (endTime - startTime) / 1000000000.0f;
+        System.out.println("Sessions:     " + results.size + " (" + failures + " failed) on " + threads + " threads");
+        System.out.println("Game time:    " + gameSeconds / 60.0f + " min");
+        System.out.println("Wall time:    " + wallSeconds + "s");
+        System.out.println("Speed:        " + (wallSeconds > 0.0f ? gameSeconds / wallSeconds : 0.0f) + "x");
+        System.out.println("Peak entities: " + peakEntities);
+        System.out.println("Tick time us: p50 " + micros(tickTimes.getPercentile(50)) + ", p90 " + micros(tickTimes.getPercentile(90))
+                + ", p99 " + micros(tickTimes.getPercentile(99)) + ", p99.9 " + micros(tickTimes.getPercentile(99.9))
+                + ", max " + micros(tickTimes.getMax()));
+        
+        for (DifficultyCurve curve : curves) {
+            int count = 0;
+            int gameOvers = 0;
+            long score = 0;
+            int maxScore = 0;
+            long waves = 0;
+            int maxWaves = 0;
+            for (SessionResult result : results) {
+                if (result.getCurve() == curve) {
+                    count++;
+                    if (result.isGameOver()) {
+                        gameOvers++;
+                    }
+                    score += result.getScore();
+                    maxScore = Math.max(maxScore, result.getScore());
+                    waves += result.getWavesSurvived();
+                    maxWaves = Math.max(maxWaves, result.getWavesSurvived());
+                }
+            }
+            
+            if (count > 0) {
+                System.out.println("Curve " + curve + ": " + count + " sessions, " + gameOvers + " game overs, score avg "
+                        + score / count + " max " + maxScore + ", waves avg " + (float) waves / count + " max " + maxWaves);
+            }
+        }
+    }
+    
+    private static float micros(long nanos) {
+        return nanos / 1000.0f;
+    }
+
+    public Array<SessionResult> getResults() {
+        return results;
+    }
+
+    public int getFailures() {
+        return failures;
+    }
+}
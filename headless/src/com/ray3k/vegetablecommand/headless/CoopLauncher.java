@@ -0,0 +1,21 @@
+package com.ray3k.vegetablecommand.headless;
+
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+
+/**
+ * Runs a local co-op session over in-memory transports.
+ * Usage: CoopLauncher [players] [max game minutes] [seed]
+ */
+public class CoopLauncher {
+
+    public static void main(String[] arg) {
+        int players = arg.length > 0 ? Integer.parseInt(arg[0]) : 2;
+        float minutes = arg.length > 1 ? Float.parseFloat(arg[1]) : 5.0f;
+        long seed = arg.length > 2 ? Long.parseLong(arg[2]) : System.nanoTime();
+        
+        HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+        config.renderInterval = 0.0f;
+        new HeadlessApplication(new CoopSimulation(800, 700, players, seed, minutes * 60.0f), config);
+    }
+}
@@ -0,0 +1,99 @@
+package com.ray3k.vegetablecommand.headless;
+
+import com.badlogic.gdx.Gdx;
+import com.ray3k.vegetablecommand.CoopClient;
+import com.ray3k.vegetablecommand.CoopServer;
+import com.ray3k.vegetablecommand.Core;
+import com.ray3k.vegetablecommand.LoopbackTransport;
+
+/**
+ * Headless co-op session over {@link LoopbackTransport}s that prints bandwidth and prediction figures.
+ */
+public class CoopSimulation extends Core {
+    private final int players;
+    private final long seed;
+    private final float maxSeconds;
+
+    public CoopSimulation(int worldWidth, int worldHeight, int players, long seed, float maxSeconds) {
+        super(true, worldWidth, worldHeight);
+        this.players = players;
+        this.seed = seed;
+        this.maxSeconds = maxSeconds;
+    }
+
+    @Override
+    public void create() {
+        try {
+            initManagers();
+            loadAssets();
+            getAssetManager().finishLoading();
+            
+            run();
+        } finally {
+            Gdx.app.exit();
+        }
+    }
+
+    @Override
+    public void render() {
+    }
+    
+    private void run() {
+        LoopbackTransport[] serverEnds = new LoopbackTransport[players];
+        CoopClient[] clients = new CoopClient[players];
+        for (int i = 0; i < players; i++) {
+            serverEnds[i] = new LoopbackTransport();
+            LoopbackTransport clientEnd = new LoopbackTransport();
+            clientEnd.connect(serverEnds[i]);
+            clients[i] = new CoopClient(this, clientEnd);
+        }
+        
+        CoopServer server = new CoopServer(this, seed, getWorldWidth(), getWorldHeight(), serverEnds);
+        server.start(getClock().getTickRate());
+        
+        float delta = getClock().getTickDelta();
+        long maxTicks = (long) Math.ceil(maxSeconds * getClock().getTickRate());
+        long clientNanos = 0;
+        int maxEntities = 0;
+        int maxPredictions = 0;
+        long startTime = System.nanoTime();
+        for (long tick = 0; tick < maxTicks && !server.getWorld().isGameOver(); tick++) {
+            server.tick(delta);
+            maxEntities = Math.max(maxEntities, server.getWorld().getEntityManager().getEntityCount());
+            
+            long clientStart = System.nanoTime();
+            for (CoopClient client : clients) {
+                client.tick(delta);
+                if (client.getInputSource() == null && client.isConnected()) {
+                    client.setInputSource(new AutopilotInputSource(client.getWorld()));
+                }
+                maxPredictions = Math.max(maxPredictions, client.getPredictionCount());
+            }
+            clientNanos += System.nanoTime() - clientStart;
+        }
+        float wallSeconds = (System.nanoTime() - startTime) / 1000000000.0f;
+        
+        int ticks = server.getTick();
+        long bytes = server.getBytesSent();
+        long inputBytes = 0;
+        int droppedPredictions = 0;
+        for (int i = 0; i < players; i++) {
+            inputBytes += serverEnds[i].getPeer().getBytesSent();
+            droppedPredictions += clients[i].getDroppedPredictions();
+        }
+        
+        System.out.println("Players:             " + players);
+        System.out.println("Seed:                " + seed);
+        System.out.println("Ticks:               " + ticks);
+        System.out.println("Wall time:           " + wallSeconds + "s");
+        System.out.println("Game over:           " + server.getWorld().isGameOver());
+        System.out.println("Score:               " + server.getWorld().getScore());
+        System.out.println("Max entities:        " + maxEntities);
+        System.out.println("Server bytes/tick:   " + (ticks > 0 ? bytes / (float) ticks / players : 0.0f) + " per client");
+        System.out.println("Server kbit/s:       " + (ticks > 0 ? bytes * 8.0f / 1000.0f / (ticks * getClock().getTickDelta()) / players : 0.0f) + " per client");
+        System.out.println("Input bytes/tick:    " + (ticks > 0 ? inputBytes / (float) ticks / players : 0.0f) + " per client");
+        System.out.println("Client us/tick:      " + (ticks > 0 ? clientNanos / 1000.0f / ticks / players : 0.0f) + " per client");
+        System.out.println("Max predictions:     " + maxPredictions);
+        System.out.println("Dropped predictions: " + droppedPredictions);
+    }
+}
@@ -0,0 +1,45 @@
+package com.ray3k.vegetablecommand.headless;
+
+import com.ray3k.vegetablecommand.GameWorld;
+
+/**
+ * Starting difficulty and per wave increment of a session.
+ */
+public class DifficultyCurve {
+    private final float start;
+    private final float increment;
+
+    public DifficultyCurve(float start, float increment) {
+        this.start = start;
+        this.increment = increment;
+    }
+    
+    /**
+     * Parses "start:increment", for example "1.0:0.1".
+     */
+    public static DifficultyCurve parse(String value) {
+        int split = value.indexOf(':');
+        if (split == -1) {
+            return new DifficultyCurve(Float.parseFloat(value), GameWorld.DEFAULT_DIFFICULTY_INCREMENT);
+        }
+        return new DifficultyCurve(Float.parseFloat(value.substring(0, split)), Float.parseFloat(value.substring(split + 1)));
+    }
+    
+    public float getStart() {
+        return start;
+    }
+
+    public float getIncrement() {
+        return increment;
+    }
+    
+    public void apply(GameWorld world) {
+        world.setDifficulty(start);
+        world.setDifficultyIncrement(increment);
+    }
+
+    @Override
+    public String toString() {
+        return start + ":" + increment;
+    }
+}
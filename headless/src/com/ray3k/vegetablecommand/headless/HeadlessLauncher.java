@@ -0,0 +1,50 @@
+package com.ray3k.vegetablecommand.headless;
+
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.ApplicationListener;
+import com.badlogic.gdx.files.FileHandle;
+import com.ray3k.vegetablecommand.KeyframeIndex;
+import com.ray3k.vegetablecommand.ReplayInputSource;
+
+/**
+ * Runs the game simulation without a window or GL context.
+ * Usage: HeadlessLauncher [game minutes] [world width] [world height] [seed]
+ * or: HeadlessLauncher replay [input log] [game minutes]
+ * or: HeadlessLauncher seek [input log] [keyframe file] [tick]
+ * or: HeadlessLauncher selfcheck [seed] [game minutes]
+ */
+public class HeadlessLauncher {
+
+    public static void main(String[] arg) {
+        ApplicationListener simulation;
+        if (arg.length > 3 && arg[0].equals("seek")) {
+            ReplayInputSource replay = ReplayInputSource.load(new FileHandle(arg[1]));
+            KeyframeIndex keyframes = KeyframeIndex.load(new FileHandle(arg[2]));
+            simulation = new SeekRunner(replay, keyframes, Long.parseLong(arg[3]));
+        } else if (arg.length > 0 && arg[0].equals("selfcheck")) {
+            long seed = arg.length > 1 ? Long.parseLong(arg[1]) : 0L;
+            float minutes = arg.length > 2 ? Float.parseFloat(arg[2]) : 5.0f;
+            simulation = new SelfCheckRunner(800, 700, seed, minutes * 60.0f);
+        } else if (arg.length > 1 && arg[0].equals("replay")) {
+            ReplayInputSource replay = ReplayInputSource.load(new FileHandle(arg[1]));
+            float minutes = arg.length > 2 ? Float.parseFloat(arg[2]) : 60.0f;
+            HeadlessSimulation replaySimulation = new HeadlessSimulation(replay.getWorldWidth(), replay.getWorldHeight(), minutes * 60.0f);
+            replaySimulation.setReplay(replay);
+            simulation = replaySimulation;
+        } else {
+            float minutes = arg.length > 0 ? Float.parseFloat(arg[0]) : 60.0f;
+            int width = arg.length > 1 ? Integer.parseInt(arg[1]) : 800;
+            int height = arg.length > 2 ? Integer.parseInt(arg[2]) : 700;
+            HeadlessSimulation liveSimulation = new HeadlessSimulation(width, height, minutes * 60.0f);
+            if (arg.length > 3) {
+                liveSimulation.setSeed(Long.parseLong(arg[3]));
+            }
+            simulation = liveSimulation;
+        }
+        
+        HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+        config.renderInterval = 0.0f;
+        new HeadlessApplication(simulation, config);
+    }
+}
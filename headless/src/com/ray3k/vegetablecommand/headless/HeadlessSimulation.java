@@ -0,0 +1,112 @@
+package com.ray3k.vegetablecommand.headless;
+
+import com.ray3k.vegetablecommand.Core;
+import com.ray3k.vegetablecommand.GameWorld;
+import com.ray3k.vegetablecommand.ReplayInputSource;
+import com.ray3k.vegetablecommand.states.GameState;
+
+/**
+ * Headless {@link Core} that simulates one game session as fast as possible
+ * and prints a summary once the game is over or the time limit is reached.
+ */
+public class HeadlessSimulation extends Core {
+    private final float maxSeconds;
+    private long maxTicks;
+    private long ticks;
+    private long startTime;
+    private boolean finished;
+    private Long seed;
+    private ReplayInputSource replay;
+
+    public HeadlessSimulation(int worldWidth, int worldHeight, float maxSeconds) {
+        super(true, worldWidth, worldHeight);
+        this.maxSeconds = maxSeconds;
+    }
+
+    @Override
+    public void initManagers() {
+        super.initManagers();
+        if (seed != null) {
+            getGameState().setSeed(seed);
+        }
+        if (replay != null) {
+            getClock().setTickRate(replay.getTickRate());
+            getGameState().setSeed(replay.getSeed());
+            getGameState().setInputSource(replay);
+        }
+    }
+
+    @Override
+    public void create() {
+        super.create();
+        maxTicks = (long) Math.ceil(maxSeconds * getClock().getTickRate());
+        startTime = System.nanoTime();
+    }
+
+    /**
+     * Checked by {@link Core} before every tick, so nothing is simulated past
+     * the end.
+     */
+    @Override
+    protected boolean isHeadlessRunOver() {
+        GameWorld world = getGameState().getWorld();
+        if (world == null) {
+            return true;
+        }
+        ticks = world.getTick();
+        return world.isGameOver() || ticks >= maxTicks || replay != null && replay.isFinished();
+    }
+
+    @Override
+    protected void endHeadlessRun() {
+        finished = true;
+        GameWorld world = getGameState().getWorld();
+        if (world == null) {
+            System.err.println("The game state has no world, see java-stacktrace.txt.");
+        } else {
+            report(world);
+        }
+        super.endHeadlessRun();
+    }
+    
+    private void report(GameWorld world) {
+        float gameSeconds = ticks * getClock().getTickDelta();
+        float wallSeconds = (System.nanoTime() - startTime) / 1000000000.0f;
+        
+        System.out.println("Seed:         " + world.getSeed());
+        System.out.println("Ticks:        " + ticks);
+        System.out.println("Game time:    " + gameSeconds + "s");
+        System.out.println("Wall time:    " + wallSeconds + "s");
+        System.out.println("Speed:        " + (wallSeconds > 0.0f ? gameSeconds / wallSeconds : 0.0f) + "x");
+        System.out.println("Game over:    " + world.isGameOver());
+        System.out.println("Level:        " + world.getLevel());
+        System.out.println("Score:        " + world.getScore());
+    }
+    
+    public GameState getGameState() {
+        return (GameState) getStateManager().getState("game");
+    }
+
+    /**
+     * Fixes the session seed. Must be called before the application starts.
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Plays back a recorded session, including its seed and tick rate. Must be
+     * called before the application starts.
+     */
+    public void setReplay(ReplayInputSource replay) {
+        this.replay = replay;
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+}
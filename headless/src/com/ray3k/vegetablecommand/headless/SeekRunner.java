@@ -0,0 +1,68 @@
+package com.ray3k.vegetablecommand.headless;
+
+import com.badlogic.gdx.Gdx;
+import com.ray3k.vegetablecommand.Core;
+import com.ray3k.vegetablecommand.GameWorld;
+import com.ray3k.vegetablecommand.KeyframeIndex;
+import com.ray3k.vegetablecommand.ReplayInputSource;
+
+/**
+ * Headless {@link Core} that compares seeking by keyframe against simulating from the start.
+ */
+public class SeekRunner extends Core {
+    private final ReplayInputSource replay;
+    private final KeyframeIndex keyframes;
+    private final long tick;
+
+    public SeekRunner(ReplayInputSource replay, KeyframeIndex keyframes, long tick) {
+        super(true, replay.getWorldWidth(), replay.getWorldHeight());
+        this.replay = replay;
+        this.keyframes = keyframes;
+        this.tick = tick;
+    }
+
+    @Override
+    public void create() {
+        try {
+            initManagers();
+            getClock().setTickRate(replay.getTickRate());
+            loadAssets();
+            getAssetManager().finishLoading();
+            
+            run();
+        } finally {
+            Gdx.app.exit();
+        }
+    }
+
+    @Override
+    public void render() {
+    }
+    
+    private void run() {
+        float delta = getClock().getTickDelta();
+        
+        long start = System.nanoTime();
+        GameWorld seeked = keyframes.seek(this, replay, tick, delta);
+        float seekMillis = (System.nanoTime() - start) / 1000000.0f;
+        int keyframe = keyframes.getTick(keyframes.find(tick));
+        
+        start = System.nanoTime();
+        GameWorld simulated = keyframes.restore(this, 0);
+        replay.seek(keyframes.getTick(0));
+        simulated.setInputSource(replay);
+        while (simulated.getTick() < tick && !simulated.isGameOver()) {
+            simulated.act(delta);
+        }
+        float simulateMillis = (System.nanoTime() - start) / 1000000.0f;
+        
+        System.out.println("Target tick:    " + tick);
+        System.out.println("Keyframe tick:  " + keyframe);
+        System.out.println("Reached tick:   " + seeked.getTick());
+        System.out.println("Seek time:      " + seekMillis + "ms");
+        System.out.println("Simulate time:  " + simulateMillis + "ms");
+        System.out.println("Level:          " + seeked.getLevel());
+        System.out.println("Score:          " + seeked.getScore());
+        System.out.println("Matches:        " + (seeked.getTick() == simulated.getTick() && seeked.getScore() == simulated.getScore() && seeked.getEntityManager().getEntityCount() == simulated.getEntityManager().getEntityCount()));
+    }
+}
@@ -0,0 +1,175 @@
+package com.ray3k.vegetablecommand.headless;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.ByteArray;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntArray;
+import com.ray3k.vegetablecommand.Core;
+import com.ray3k.vegetablecommand.GameWorld;
+import com.ray3k.vegetablecommand.InputRecorder;
+import com.ray3k.vegetablecommand.ReplayInputSource;
+import com.ray3k.vegetablecommand.StateDecoder;
+import com.ray3k.vegetablecommand.StateEncoder;
+import com.ray3k.vegetablecommand.StateStreamPlayer;
+import com.ray3k.vegetablecommand.StateStreamRecorder;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Headless {@link Core} that checks the state stream and the input log survive an encode and decode round trip.
+ */
+public class SelfCheckRunner extends Core {
+    private final long seed;
+    private final float maxSeconds;
+    private final IntArray scores;
+    private final IntArray entityCounts;
+    private long ticks;
+    private int failures;
+
+    public SelfCheckRunner(int worldWidth, int worldHeight, long seed, float maxSeconds) {
+        super(true, worldWidth, worldHeight);
+        this.seed = seed;
+        this.maxSeconds = maxSeconds;
+        scores = new IntArray();
+        entityCounts = new IntArray();
+    }
+
+    @Override
+    public void create() {
+        FileHandle stream = null;
+        try {
+            initManagers();
+            loadAssets();
+            getAssetManager().finishLoading();
+
+            stream = new FileHandle(File.createTempFile("selfcheck", ".vcst"));
+            byte[] inputLog = checkStateStream(stream);
+            checkStateFile(stream);
+            checkInputLog(inputLog);
+
+            System.out.println("Ticks:        " + ticks);
+            System.out.println("Result:       " + (failures == 0 ? "passed" : failures + " failures"));
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Unable to create the state stream file.", e);
+        } finally {
+            if (stream != null) {
+                stream.delete();
+            }
+            Gdx.app.exit();
+        }
+    }
+
+    @Override
+    public void render() {
+    }
+
+    /**
+     * Plays a session with the autopilot, recording its input and its state
+     * stream. Every frame is also decoded right away into a puppet world and
+     * compared against the live one.
+     * @return the recorded input log.
+     */
+    private byte[] checkStateStream(FileHandle stream) {
+        GameWorld world = new GameWorld(this, seed, getWorldWidth(), getWorldHeight());
+        world.setInputSource(new AutopilotInputSource(world));
+        InputRecorder recorder = new InputRecorder();
+        recorder.begin(seed, getClock().getTickRate(), world.getWorldWidth(), world.getWorldHeight());
+        world.setRecorder(recorder);
+        StateStreamRecorder stateRecorder = new StateStreamRecorder();
+        stateRecorder.begin(stream, world, getClock().getTickRate());
+        world.setStateRecorder(stateRecorder);
+        world.start();
+
+        StateEncoder encoder = new StateEncoder();
+        StateDecoder decoder = new StateDecoder(new GameWorld(this, seed, getWorldWidth(), getWorldHeight()));
+        ByteArray frame = new ByteArray(1024);
+        float delta = getClock().getTickDelta();
+        long maxTicks = (long) Math.ceil(maxSeconds * getClock().getTickRate());
+        int mismatchedFrames = 0;
+        while (!world.isGameOver() && world.getTick() < maxTicks) {
+            world.act(delta);
+            scores.add(world.getScore());
+            entityCounts.add(world.getEntityManager().getEntityCount());
+
+            frame.clear();
+            encoder.encode(world, frame);
+            decoder.decode(ByteBuffer.wrap(frame.items, 0, frame.size));
+            int mismatches = decoder.verify(world);
+            if (mismatches > 0) {
+                if (mismatchedFrames == 0) {
+                    System.out.println("State stream: " + mismatches + " entities differ at tick " + world.getTick());
+                }
+                mismatchedFrames++;
+            }
+        }
+
+        recorder.end();
+        stateRecorder.end();
+        ticks = world.getTick();
+        report("State stream", mismatchedFrames == 0, mismatchedFrames + " of " + ticks + " frames differ");
+
+        verifyFile(world, stream);
+        return recorder.toBytes();
+    }
+
+    private void verifyFile(GameWorld world, FileHandle stream) {
+        StateStreamPlayer player = new StateStreamPlayer(this, stream);
+        while (player.step()) {
+        }
+        int mismatches = player.getDecoder().verify(world);
+        report("Stream file", player.getFrame() == ticks && mismatches == 0, player.getFrame() + " frames, " + mismatches + " entities differ on the last");
+    }
+
+    /**
+     * Rewinds the recorded file and plays it once more, so a stream that
+     * starts over is decoded the same way.
+     */
+    private void checkStateFile(FileHandle stream) {
+        StateStreamPlayer player = new StateStreamPlayer(this, stream);
+        while (player.step()) {
+        }
+        int entities = player.getWorld().getEntityManager().getEntityCount();
+        player.rewind();
+        while (player.step()) {
+        }
+        report("Stream rewind", player.getFrame() == ticks && player.getWorld().getEntityManager().getEntityCount() == entities,
+                player.getFrame() + " frames, " + player.getWorld().getEntityManager().getEntityCount() + " of " + entities + " entities");
+    }
+
+    /**
+     * Replays the recorded input into a fresh world and compares the score
+     * and the entity count after every tick.
+     */
+    private void checkInputLog(byte[] inputLog) {
+        ReplayInputSource replay = new ReplayInputSource(inputLog);
+        GameWorld world = new GameWorld(this, replay.getSeed(), replay.getWorldWidth(), replay.getWorldHeight());
+        world.setInputSource(replay);
+        world.start();
+
+        float delta = getClock().getTickDelta();
+        long divergedTick = -1;
+        while (!replay.isFinished()) {
+            world.act(delta);
+            int index = (int) world.getTick() - 1;
+            if (divergedTick == -1 && (index >= scores.size || world.getScore() != scores.get(index)
+                    || world.getEntityManager().getEntityCount() != entityCounts.get(index))) {
+                divergedTick = world.getTick();
+            }
+        }
+        report("Input log", divergedTick == -1 && world.getTick() == ticks,
+                world.getTick() + " ticks" + (divergedTick == -1 ? "" : ", diverged at tick " + divergedTick));
+    }
+
+    private void report(String check, boolean passed, String detail) {
+        if (!passed) {
+            failures++;
+        }
+        System.out.println(check + ": " + (passed ? "ok" : "FAILED") + " (" + detail + ")");
+    }
+
+    public int getFailures() {
+        return failures;
+    }
+}
@@ -0,0 +1,73 @@
+package com.ray3k.vegetablecommand.headless;
+
+/**
+ * Outcome of one batch session.
+ */
+public class SessionResult {
+    private final long seed;
+    private final DifficultyCurve curve;
+    private final TickHistogram tickTimes;
+    private int score;
+    private int wavesSurvived;
+    private long ticks;
+    private int peakEntities;
+    private boolean gameOver;
+
+    public SessionResult(long seed, DifficultyCurve curve) {
+        this.seed = seed;
+        this.curve = curve;
+        tickTimes = new TickHistogram();
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public DifficultyCurve getCurve() {
+        return curve;
+    }
+
+    public TickHistogram getTickTimes() {
+        return tickTimes;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public void setScore(int score) {
+        this.score = score;
+    }
+
+    public int getWavesSurvived() {
+        return wavesSurvived;
+    }
+
+    public void setWavesSurvived(int wavesSurvived) {
+        this.wavesSurvived = wavesSurvived;
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    public void setTicks(long ticks) {
+        this.ticks = ticks;
+    }
+
+    public int getPeakEntities() {
+        return peakEntities;
+    }
+
+    public void setPeakEntities(int peakEntities) {
+        this.peakEntities = peakEntities;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    public void setGameOver(boolean gameOver) {
+        this.gameOver = gameOver;
+    }
+}
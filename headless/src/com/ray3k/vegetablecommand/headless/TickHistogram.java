@@ -0,0 +1,83 @@
+package com.ray3k.vegetablecommand.headless;
+
+/**
+ * Log-linear histogram of tick durations in nanoseconds.
+ */
+public class TickHistogram {
+    private static final int SUB_BITS = 4;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private final long[] counts;
+    private long total;
+    private long max;
+
+    public TickHistogram() {
+        counts = new long[64 * SUB_COUNT];
+    }
+    
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts[index(nanos)]++;
+        total++;
+        if (nanos > max) {
+            max = nanos;
+        }
+    }
+    
+    public void add(TickHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+        max = Math.max(max, other.max);
+    }
+    
+    /**
+     * @param percentile between 0 and 100.
+     * @return the lower bound of the bucket holding the given percentile.
+     */
+    public long getPercentile(double percentile) {
+        if (total == 0) {
+            return 0;
+        }
+        
+        long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        if (target >= total) {
+            return max;
+        }
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return Math.min(lowerBound(i), max);
+            }
+        }
+        return max;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getMax() {
+        return max;
+    }
+    
+    private static int index(long value) {
+        if (value < SUB_COUNT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return (shift + 1) * SUB_COUNT + (int) ((value >>> shift) & (SUB_COUNT - 1));
+    }
+    
+    private static long lowerBound(int index) {
+        int bucket = index / SUB_COUNT;
+        int sub = index % SUB_COUNT;
+        if (bucket == 0) {
+            return sub;
+        }
+        return (long) (SUB_COUNT + sub) << (bucket - 1);
+    }
+}